@@ -0,0 +1,61 @@
+package utils;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link FloatKernels} on the SIMD lanes of the incubating Vector API, with
+ * the scalar loops for the elements after the last full vector. The combine
+ * stays scalar: the JIT already vectorizes that loop, which has no sum or
+ * comparison carried from one element to the next. It needs
+ * JDK 16 or later, compiling and running with
+ * {@code --add-modules jdk.incubator.vector}, and is only loaded by name from
+ * {@link FloatKernels#getInstance()}.
+ */
+public class VectorFloatKernels extends FloatKernels {
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	public VectorFloatKernels() {
+		// fail here, while being loaded, when the module is missing
+		SPECIES.length();
+	}
+
+	@Override
+	public String getName() {
+		return "vector" + SPECIES.length();
+	}
+
+	@Override
+	public void normalize(float[] array, int length) {
+		FloatVector maxs = FloatVector.broadcast(SPECIES, Float.MIN_VALUE);
+		FloatVector mins = FloatVector.broadcast(SPECIES, Float.MAX_VALUE);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector v = FloatVector.fromArray(SPECIES, array, i);
+			maxs = maxs.max(v);
+			mins = mins.min(v);
+		}
+		float max = maxs.reduceLanes(VectorOperators.MAX);
+		float min = mins.reduceLanes(VectorOperators.MIN);
+		for (; i < length; i++) {
+			if (max < array[i])
+				max = array[i];
+			if (min > array[i])
+				min = array[i];
+		}
+
+		float span = max - min;
+		FloatVector minimums = FloatVector.broadcast(SPECIES, min);
+		FloatVector spans = FloatVector.broadcast(SPECIES, span);
+		i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector.fromArray(SPECIES, array, i).sub(minimums).div(spans)
+					.intoArray(array, i);
+		}
+		for (; i < length; i++) {
+			array[i] = (array[i] - min) / span;
+		}
+	}
+}
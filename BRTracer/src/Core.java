@@ -1,5 +1,11 @@
+import java.io.File;
+import java.util.Hashtable;
+
 import evaluation.Evaluation;
+import property.Property;
 import sourcecode.*;
+import utils.SparseVector;
+import utils.Stem;
 import bug.BugCorpusCreator;
 import bug.BugSimilarity;
 import bug.BugVector;
@@ -8,11 +14,21 @@ import bug.SimilarityDistribution;
 public class Core {
 
 	public void process() {
-
+		Property property = Property.getInstance();
+		File stemCacheFile = new File(property.getWorkDir()
+				+ property.getSeparator() + "StemCache.txt");
+		Stem.setCacheSize(property.getStemCacheSize());
+		if (property.isPersistStemCache()) {
+			try {
+				Stem.load(stemCacheFile);
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
 
 		try{
-			System.out.println("get all class name...");
-			new ClassName().create();
+			System.out.println("scan source code...");
+			new SourceScanner().scan();
 		} catch( Exception ex ){
 			ex.printStackTrace();
 		}
@@ -26,39 +42,37 @@ public class Core {
 
 		}
 
+		// all words are stemmed by now
+		System.out.println("stem cache: " + Stem.getHits() + " hits, "
+				+ Stem.getMisses() + " misses");
+		if (property.isPersistStemCache()) {
+			try {
+				Stem.save(stemCacheFile);
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
+		}
 
+
+		Hashtable<Integer, SparseVector> bugVectors = null;
 		try {
 			System.out.println("create bug vector...");
-			new BugVector().create();
+			bugVectors = new BugVector().create();
 		} catch (Exception ex) {
-
+			ex.printStackTrace();
 		}
 		try {
-			System.out.println("compute bug similarity...");
-			new BugSimilarity().computeSimilarity();
+			// without new vectors, the old BugVector.txt would be compared
+			if (bugVectors != null) {
+				System.out.println("compute bug similarity...");
+				new BugSimilarity().computeSimilarity(bugVectors);
+			}
 		} catch (Exception ex) {
 
 		}
 
 
 
-		try {
-			System.out.println("create code corpus...");
-			new CodeCorpusCreator_SpiltCorpus().create();
-		} catch (Exception ex) {
-			ex.printStackTrace();
-		}
-
-
-
-        try {
-            System.out.println("create code corpus origin...");
-            new CodeCorpusCreator_OriginClass().create();
-        } catch (Exception ex) {
-
-        }
-
-
 		try {
 			System.out.println("compute SimiScore...");
 			new SimilarityDistribution().distribute();
@@ -74,13 +88,6 @@ public class Core {
 
 		}
 
-        try {
-            System.out.println("create index origin...");
-            new Indexer_OriginClass().index();
-        } catch (Exception ex) {
-
-        }
-
 
 		try {
 			System.out.println("create vector...");
@@ -102,19 +109,16 @@ public class Core {
 		}
 		//----------------evaluation--------
 
-		try {
-			System.out.println("count LoC...");
-			new LineofCode().beginCount();
-		}
-		catch (Exception ex){
-			ex.printStackTrace();
-		}
-
-		try {
-			System.out.println("evaluate...");
-			new Evaluation().evaluate();
-		} catch (Exception ex) {
-			ex.printStackTrace();
+		if (property.getSimilarityTopK() > 0) {
+			// Evaluation needs every score of VSMScore.txt
+			System.out.println("top-K VSM, skip evaluation");
+		} else {
+			try {
+				System.out.println("evaluate...");
+				new Evaluation().evaluate();
+			} catch (Exception ex) {
+				ex.printStackTrace();
+			}
 		}
 
 		System.out.println("finished");
@@ -0,0 +1,176 @@
+package bug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * All bug corpora in one file instead of one BugCorpus/&lt;id&gt;.txt per bug.
+ * BugCorpus.dat holds the records back to back, each a length-prefixed
+ * UTF-8 bug id followed by the length-prefixed corpus. BugCorpus.idx holds
+ * the id and byte offset of every record in the same order, so a bug can
+ * be read by id without scanning.
+ * <p>
+ * Both files are only ever appended to while the store is written.
+ */
+public class BugCorpusStore {
+	public static final String DATA_FILE = "BugCorpus.dat";
+	public static final String INDEX_FILE = "BugCorpus.idx";
+
+	private final String dir;
+
+	private DataOutputStream dataOut;
+	private DataOutputStream indexOut;
+	private long offset = 0;
+
+	private List<String> bugIds = new ArrayList<String>();
+	private HashMap<String, Long> offsets = new HashMap<String, Long>();
+	private RandomAccessFile data;
+
+	private BugCorpusStore(String dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Starts an empty store in the directory, replacing any old one.
+	 */
+	public static BugCorpusStore create(String dir) throws IOException {
+		BugCorpusStore store = new BugCorpusStore(dir);
+		store.dataOut = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(dir, DATA_FILE))));
+		store.indexOut = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(dir, INDEX_FILE))));
+		return store;
+	}
+
+	/**
+	 * Opens the store in the directory for reading.
+	 */
+	public static BugCorpusStore open(String dir) throws IOException {
+		BugCorpusStore store = new BugCorpusStore(dir);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(new File(dir, INDEX_FILE))));
+		try {
+			while (true) {
+				String bugId;
+				try {
+					bugId = in.readUTF();
+				} catch (EOFException ex) {
+					break;
+				}
+				store.bugIds.add(bugId);
+				store.offsets.put(bugId, in.readLong());
+			}
+		} finally {
+			in.close();
+		}
+		store.data = new RandomAccessFile(new File(dir, DATA_FILE), "r");
+		return store;
+	}
+
+	public void append(String bugId, String corpus) throws IOException {
+		indexOut.writeUTF(bugId);
+		indexOut.writeLong(offset);
+		byte[] id = bugId.getBytes("UTF-8");
+		byte[] text = corpus.getBytes("UTF-8");
+		dataOut.writeInt(id.length);
+		dataOut.write(id);
+		dataOut.writeInt(text.length);
+		dataOut.write(text);
+		offset += 8 + id.length + text.length;
+		bugIds.add(bugId);
+	}
+
+	/**
+	 * @return the ids in the order the bugs were added
+	 */
+	public List<String> getBugIds() {
+		return bugIds;
+	}
+
+	/**
+	 * @return the corpus of the bug, or null when the store does not have it
+	 */
+	public String get(String bugId) throws IOException {
+		Long position = offsets.get(bugId);
+		if (position == null) {
+			return null;
+		}
+		data.seek(position);
+		data.skipBytes(data.readInt());
+		byte[] text = new byte[data.readInt()];
+		data.readFully(text);
+		return new String(text, "UTF-8");
+	}
+
+	/**
+	 * Reads the records in the order they were added, without the index.
+	 */
+	public Cursor scan() throws IOException {
+		return new Cursor(new File(dir, DATA_FILE));
+	}
+
+	public void close() throws IOException {
+		if (dataOut != null) {
+			dataOut.close();
+			indexOut.close();
+		}
+		if (data != null) {
+			data.close();
+		}
+	}
+
+	public static class Cursor {
+		private final DataInputStream in;
+		private String bugId;
+		private String corpus;
+
+		private Cursor(File file) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+		}
+
+		/**
+		 * @return false after the last record
+		 */
+		public boolean next() throws IOException {
+			int length;
+			try {
+				length = in.readInt();
+			} catch (EOFException ex) {
+				return false;
+			}
+			bugId = readString(length);
+			corpus = readString(in.readInt());
+			return true;
+		}
+
+		public String getBugId() {
+			return bugId;
+		}
+
+		public String getCorpus() {
+			return corpus;
+		}
+
+		public void close() throws IOException {
+			in.close();
+		}
+
+		private String readString(int length) throws IOException {
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, "UTF-8");
+		}
+	}
+}
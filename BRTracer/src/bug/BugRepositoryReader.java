@@ -0,0 +1,100 @@
+package bug;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads BugRepository.xml one {@link Bug} at a time with StAX, so memory
+ * does not grow with the size of the repository. Every element under the
+ * root is a bug; the summary and description are taken from its
+ * buginformation element and the fixed files from its fixedFiles element,
+ * each as the full text of the element, like the DOM reading did.
+ */
+public class BugRepositoryReader {
+	private final InputStream in;
+	private final XMLStreamReader reader;
+	// depth of the current element: 1 is the root, 2 a bug
+	private int depth = 0;
+
+	public BugRepositoryReader(String bugFilePath) throws IOException,
+			XMLStreamException {
+		in = new FileInputStream(bugFilePath);
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		reader = factory.createXMLStreamReader(in);
+	}
+
+	/**
+	 * @return the next bug, or null after the last one
+	 */
+	public Bug next() throws XMLStreamException {
+		Bug bug = null;
+		String section = null;
+		String field = null;
+		StringBuffer text = null;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String name = reader.getLocalName();
+				if (depth == 1) {
+					continue;
+				} else if (depth == 2) {
+					bug = new Bug();
+					bug.setBugId(reader.getAttributeValue(null, "id"));
+					bug.setOpenDate(reader.getAttributeValue(null, "opendate"));
+					bug.setFixDate(reader.getAttributeValue(null, "fixdate"));
+				} else if (depth == 3) {
+					section = name;
+				} else if (depth == 4 && isField(section, name)) {
+					field = name;
+					text = new StringBuffer();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == 4 && field != null) {
+					setField(bug, field, text.toString());
+					field = null;
+					text = null;
+				}
+				depth--;
+				if (depth == 1) {
+					return bug;
+				}
+			} else if (text != null
+					&& (event == XMLStreamConstants.CHARACTERS
+							|| event == XMLStreamConstants.CDATA
+							|| event == XMLStreamConstants.SPACE)) {
+				text.append(reader.getText());
+			}
+		}
+		return null;
+	}
+
+	private boolean isField(String section, String name) {
+		if (section.equals("buginformation")) {
+			return name.equals("summary") || name.equals("description");
+		}
+		return section.equals("fixedFiles") && name.equals("file");
+	}
+
+	private void setField(Bug bug, String field, String value) {
+		if (field.equals("summary")) {
+			bug.setBugSummary(value);
+		} else if (field.equals("description")) {
+			bug.setBugDescription(value);
+		} else {
+			bug.addFixedFile(value);
+		}
+	}
+
+	public void close() throws IOException, XMLStreamException {
+		reader.close();
+		in.close();
+	}
+}
@@ -4,75 +4,347 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import property.Property;
+import utils.SparseVector;
+import utils.TopK;
 
 public class BugSimilarity {
-	private int wordCount = Property.getInstance().getBugTermCount();
 	private int bugReportCount = Property.getInstance().getBugReportCount();
 	private String workDir = Property.getInstance().getWorkDir()
 			+ Property.getInstance().getSeparator();
+	private boolean prune = Property.getInstance().isPruneSimilarBugs();
+	private int limit = Property.getInstance().getSimilarBugLimit();
+	private float threshold = Property.getInstance().getSimilarBugThreshold();
+
+	// the bugs in SortedId order
+	private int[] idArr;
+	private SparseVector[] rowVectors;
+	private double[] norms;
+	// for every term the rows that have it, in order, and their weights
+	private int[][] postingBugs;
+	private float[][] postingWeights;
+
+	private FileWriter writer;
+	private SimilarBugList list;
+
+	// the similar bugs kept for one bug when pruning
+	private static class SimilarBugs {
+		final int bugId;
+		final int[] similarIds;
+		final float[] similarities;
+
+		SimilarBugs(int bugId, int count) {
+			this.bugId = bugId;
+			similarIds = new int[count];
+			similarities = new float[count];
+		}
+	}
 
 	public static void main(String[] args) {
 		BugSimilarity sim = new BugSimilarity();
 		try {
 			sim.computeSimilarity();
-		} catch (IOException e) {
+		} catch (Exception e) {
 
 			e.printStackTrace();
 		}
 	}
 
-	public void computeSimilarity() throws IOException {
+	/**
+	 * Compares every bug with the bugs before it in SortedId.txt. The dot
+	 * products are summed through an inverted index over the bugs, so pairs
+	 * without a common term cost nothing but their zero output.
+	 * <p>
+	 * The rows are cut into tiles of about the same number of pairs. With
+	 * more than one thread (see {@link Property#getThreadCount()}) the tiles
+	 * are computed on a worker pool while this thread writes them in
+	 * SortedId order, so the output is the same as in a sequential run.
+	 * <p>
+	 * When {@link Property#isPruneSimilarBugs()}, only the most similar
+	 * earlier bugs above the threshold are kept, with a bounded heap, and
+	 * written to the {@link SimilarBugList} instead of BugSimilarity.txt.
+	 * With {@link Property#isApproximateSimilarBugs()} they are chosen among
+	 * the candidates of a {@link SimilarBugIndex} only.
+	 */
+	public void computeSimilarity() throws Exception {
+		this.computeSimilarity(this.getVector());
+	}
+
+	/**
+	 * {@link #computeSimilarity()} with the vectors that {@link BugVector}
+	 * just made, instead of reading them back from BugVector.txt.
+	 */
+	public void computeSimilarity(Hashtable<Integer, SparseVector> vectors)
+			throws Exception {
 		BufferedReader reader = new BufferedReader(new FileReader(workDir
 				+ "SortedId.txt"));
 		String line = null;
-		int[] idArr = new int[bugReportCount];
+		idArr = new int[bugReportCount];
 		int index = 0;
 		while ((line = reader.readLine()) != null) {
 			String idStr = line.substring(0, line.indexOf("\t"));
 			idArr[index++] = Integer.parseInt(idStr);
 		}
+		reader.close();
 
-		Hashtable<Integer, float[]> vectors = this.getVector();
+		if (Property.getInstance().isApproximateSimilarBugs()) {
+			this.loadRows(vectors);
+			this.computeApproximate();
+			return;
+		}
+		this.buildIndex(vectors);
 
-		FileWriter writer = new FileWriter(workDir + "BugSimilarity.txt");
+		if (prune) {
+			list = SimilarBugList.create(workDir);
+		} else {
+			writer = new FileWriter(workDir + "BugSimilarity.txt");
+		}
+		int threadCount = Property.getInstance().getThreadCount();
+		int[] tiles = this.getTiles(Math.max(1, threadCount * 16));
+		try {
+			if (threadCount > 1) {
+				this.computeInParallel(tiles, threadCount);
+			} else {
+				for (int t = 0; t + 1 < tiles.length; t++) {
+					this.write(this.computeTile(tiles[t], tiles[t + 1]));
+				}
+			}
+		} finally {
+			if (prune) {
+				list.close();
+			} else {
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of terms
+	 */
+	private int loadRows(Hashtable<Integer, SparseVector> vectors) {
+		rowVectors = new SparseVector[bugReportCount];
+		norms = new double[bugReportCount];
+		int termCount = 0;
+		for (int i = 0; i < bugReportCount; i++) {
+			rowVectors[i] = vectors.get(idArr[i]);
+			norms[i] = Math.sqrt(rowVectors[i].squaredNorm());
+			int[] terms = rowVectors[i].getIndices();
+			if (terms.length > 0) {
+				termCount = Math.max(termCount, terms[terms.length - 1] + 1);
+			}
+		}
+		return termCount;
+	}
 
+	private void buildIndex(Hashtable<Integer, SparseVector> vectors) {
+		int termCount = this.loadRows(vectors);
+		int[] sizes = new int[termCount];
+		for (SparseVector vector : rowVectors) {
+			for (int term : vector.getIndices()) {
+				sizes[term]++;
+			}
+		}
+		postingBugs = new int[termCount][];
+		postingWeights = new float[termCount][];
+		for (int term = 0; term < termCount; term++) {
+			postingBugs[term] = new int[sizes[term]];
+			postingWeights[term] = new float[sizes[term]];
+		}
+		int[] filled = new int[termCount];
 		for (int i = 0; i < bugReportCount; i++) {
+			int[] terms = rowVectors[i].getIndices();
+			float[] weights = rowVectors[i].getValues();
+			for (int t = 0; t < terms.length; t++) {
+				int term = terms[t];
+				postingBugs[term][filled[term]] = i;
+				postingWeights[term][filled[term]++] = weights[t];
+			}
+		}
+	}
+
+	/**
+	 * @return the first row of every tile followed by the row count; row i
+	 *         costs i pairs plus one for the row itself
+	 */
+	private int[] getTiles(int tileCount) {
+		double total = (double) bugReportCount * (bugReportCount + 1) / 2;
+		int[] bounds = new int[tileCount + 1];
+		int count = 1;
+		double work = 0;
+		for (int i = 0; i < bugReportCount && count < tileCount; i++) {
+			work += i + 1;
+			if (work >= total * count / tileCount) {
+				bounds[count++] = i + 1;
+			}
+		}
+		while (count <= tileCount) {
+			bounds[count++] = bugReportCount;
+		}
+		return bounds;
+	}
+
+	private void computeInParallel(int[] tiles, int threadCount)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		// only a few tiles per thread are computed ahead of the writer, which
+		// keeps the finished rows waiting in memory bounded
+		int window = threadCount * 2;
+		LinkedList<Future<Object[]>> pending = new LinkedList<Future<Object[]>>();
+		int next = 0;
+		try {
+			while (next + 1 < tiles.length || !pending.isEmpty()) {
+				while (next + 1 < tiles.length && pending.size() < window) {
+					final int first = tiles[next];
+					final int end = tiles[++next];
+					pending.add(pool.submit(new Callable<Object[]>() {
+						public Object[] call() throws Exception {
+							return computeTile(first, end);
+						}
+					}));
+				}
+				try {
+					this.write(pending.removeFirst().get());
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof Exception)
+						throw (Exception) ex.getCause();
+					throw ex;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return for each row from first to end, its line of
+	 *         BugSimilarity.txt, or its {@link SimilarBugs} when pruning
+	 */
+	private Object[] computeTile(int first, int end) {
+		Object[] rows = new Object[end - first];
+		// dot products of the current bug with the earlier ones
+		float[] products = new float[end];
+		TopK top = prune ? new TopK(limit > 0 ? limit : Integer.MAX_VALUE)
+				: null;
+
+		for (int i = first; i < end; i++) {
+			int[] terms = rowVectors[i].getIndices();
+			float[] weights = rowVectors[i].getValues();
+
+			// only the earlier bugs sharing a term get anything added, in
+			// term order
+			for (int t = 0; t < terms.length; t++) {
+				int term = terms[t];
+				int[] bugs = postingBugs[term];
+				float[] bugWeights = postingWeights[term];
+				for (int p = 0; p < bugs.length && bugs[p] < i; p++) {
+					products[bugs[p]] += weights[t] * bugWeights[p];
+				}
+			}
+
 			int firstId = idArr[i];
-			float[] firstVector = vectors.get(firstId);
-			String output = firstId + ";";
-			for (int j = 0; j < i; j++) {
-				int secondId = idArr[j];
-				float[] secondVector = vectors.get(secondId);
-				float similarity = this.getCosineValue(firstVector,
-						secondVector);
-				output += secondId + ":" + similarity + " ";
+			if (prune) {
+				top.clear();
+				for (int j = 0; j < i; j++) {
+					float similarity = (float) (products[j] / (norms[i] * norms[j]));
+					if (similarity > threshold) {
+						top.offer(j, similarity);
+					}
+					products[j] = 0;
+				}
+				SimilarBugs row = new SimilarBugs(firstId, top.size());
+				top.toArrays(row.similarIds, row.similarities);
+				for (int k = 0; k < row.similarIds.length; k++) {
+					row.similarIds[k] = idArr[row.similarIds[k]];
+				}
+				rows[i - first] = row;
+			} else {
+				StringBuffer output = new StringBuffer();
+				output.append(firstId).append(';');
+				for (int j = 0; j < i; j++) {
+					float similarity = (float) (products[j] / (norms[i] * norms[j]));
+					output.append(idArr[j]).append(':').append(similarity)
+							.append(' ');
+					products[j] = 0;
+				}
+				rows[i - first] = output.toString().trim();
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Adds the bugs to a {@link SimilarBugIndex} one at a time and compares
+	 * each only with the earlier bugs it hands back.
+	 */
+	private void computeApproximate() throws IOException {
+		Property property = Property.getInstance();
+		SimilarBugIndex index = new SimilarBugIndex(property.getLshBands(),
+				property.getLshRows(), 0);
+		TopK top = new TopK(limit > 0 ? limit : Integer.MAX_VALUE);
+		int[] candidates = new int[bugReportCount];
+		int[] similarIds = new int[bugReportCount];
+		float[] similarities = new float[bugReportCount];
+		long candidateCount = 0;
+
+		list = SimilarBugList.create(workDir);
+		try {
+			for (int i = 0; i < bugReportCount; i++) {
+				int[] keys = index.hash(rowVectors[i]);
+				int count = index.candidates(keys, candidates);
+				candidateCount += count;
+				top.clear();
+				for (int c = 0; c < count; c++) {
+					int j = candidates[c];
+					float product = rowVectors[i].dot(rowVectors[j]);
+					float similarity = (float) (product / (norms[i] * norms[j]));
+					if (similarity > threshold) {
+						top.offer(j, similarity);
+					}
+				}
+				int kept = top.toArrays(similarIds, similarities);
+				for (int k = 0; k < kept; k++) {
+					similarIds[k] = idArr[similarIds[k]];
+				}
+				list.append(idArr[i], similarIds, similarities, kept);
+				index.add(i, keys);
 			}
-			writer.write(output.trim()
-					+ Property.getInstance().getLineSeparator());
-			//System.out.println(i);
-			writer.flush();
+		} finally {
+			list.close();
 		}
-		writer.close();
+		System.out.println("similar bugs: "
+				+ String.format("%.1f", (double) candidateCount
+						/ Math.max(1, bugReportCount))
+				+ " candidates per bug");
 	}
 
-	private float getCosineValue(float[] firstVector, float[] secondVector) {
-		float len1 = 0;
-		float len2 = 0;
-		float product = 0;
-		for (int i = 0; i < wordCount; i++) {
-			len1 += firstVector[i] * firstVector[i];
-			len2 += secondVector[i] * secondVector[i];
-			product += firstVector[i] * secondVector[i];
+	private void write(Object[] rows) throws IOException {
+		for (Object row : rows) {
+			if (prune) {
+				SimilarBugs bugs = (SimilarBugs) row;
+				list.append(bugs.bugId, bugs.similarIds, bugs.similarities,
+						bugs.similarIds.length);
+			} else {
+				writer.write(row + Property.getInstance().getLineSeparator());
+			}
 		}
-		return (float) (product / (Math.sqrt(len1) * Math.sqrt(len2)));
 	}
 
-	public Hashtable<Integer, float[]> getVector() throws IOException {
+	/**
+	 * Reads BugVector.txt, as {@link BugVector} wrote it.
+	 */
+	public Hashtable<Integer, SparseVector> getVector() throws IOException {
 
-		Hashtable<Integer, float[]> vectors = new Hashtable<Integer, float[]>();
+		Hashtable<Integer, SparseVector> vectors = new Hashtable<Integer, SparseVector>();
 
 		BufferedReader reader = new BufferedReader(new FileReader(workDir
 				+ "BugVector.txt"));
@@ -81,24 +353,30 @@ public class BugSimilarity {
 			String idStr = line.substring(0, line.indexOf("."));
 			String vectorStr = line.substring(line.indexOf(";") + 1).trim();
 			Integer id = Integer.parseInt(idStr);
-			float[] vector = this.getVector(vectorStr);
+			SparseVector vector = this.getVector(vectorStr);
 			vectors.put(id, vector);
 		}
+		reader.close();
 		return vectors;
 	}
 
-	private float[] getVector(String vectorStr) {
-		float[] vector = new float[wordCount];
-		String[] values = vectorStr.split(" ");
-		for (String value : values) {
+	private SparseVector getVector(String vectorStr) {
+		List<Integer> indices = new ArrayList<Integer>();
+		List<Float> values = new ArrayList<Float>();
+		for (String value : vectorStr.split(" ")) {
 			String[] singleValues = value.split(":");
 			if (singleValues.length == 2) {
-				int index = Integer.parseInt(singleValues[0]);
-				float sim = Float.parseFloat(singleValues[1]);
-				vector[index] = sim;
+				indices.add(Integer.parseInt(singleValues[0]));
+				values.add(Float.parseFloat(singleValues[1]));
 			}
 		}
-		return vector;
+		int[] indexArray = new int[indices.size()];
+		float[] valueArray = new float[values.size()];
+		for (int i = 0; i < indexArray.length; i++) {
+			indexArray[i] = indices.get(i);
+			valueArray[i] = values.get(i);
+		}
+		return new SparseVector(indexArray, valueArray);
 	}
 
 }
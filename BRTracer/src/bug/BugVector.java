@@ -2,69 +2,168 @@ package bug;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
 
 import property.Property;
-import edu.udo.cs.wvtool.config.WVTConfigException;
-import edu.udo.cs.wvtool.config.WVTConfiguration;
-import edu.udo.cs.wvtool.config.WVTConfigurationFact;
-import edu.udo.cs.wvtool.config.WVTConfigurationRule;
-import edu.udo.cs.wvtool.generic.output.WordVectorWriter;
-import edu.udo.cs.wvtool.generic.stemmer.LovinsStemmerWrapper;
-import edu.udo.cs.wvtool.generic.stemmer.PorterStemmerWrapper;
-import edu.udo.cs.wvtool.generic.stemmer.WVTStemmer;
-import edu.udo.cs.wvtool.generic.vectorcreation.TFIDF;
-import edu.udo.cs.wvtool.main.WVTDocumentInfo;
-import edu.udo.cs.wvtool.main.WVTFileInputList;
-import edu.udo.cs.wvtool.main.WVTool;
-import edu.udo.cs.wvtool.util.WVToolException;
-import edu.udo.cs.wvtool.wordlist.WVTWordList;
+import utils.SparseVector;
+import edu.udo.cs.wvtool.external.LovinsStemmer;
+import edu.udo.cs.wvtool.external.Stopwords;
 
+/**
+ * TF-IDF vectors of the bug corpora. The corpora in the
+ * {@link BugCorpusStore} are already split, filtered and stemmed by the
+ * {@link utils.Analyzer}; they are tokenized once more the way wvtool's
+ * default configuration did, into runs of letters, dropping its English
+ * stopwords and words under {@link #MIN_LENGTH} letters, and Lovins stemmed.
+ * The weight of a term is tf / length * log(bugs / df), and every vector is
+ * scaled to unit length, as wvtool's TFIDF did.
+ * <p>
+ * BugTermList.txt gets the terms in the order they are first seen and
+ * BugVector.txt the non-zero weights of every bug; the vectors are also
+ * returned, for {@link BugSimilarity}.
+ */
 public class BugVector {
 
 	private final static String HOME_FOLDER = Property.getInstance()
 			.getWorkDir() + Property.getInstance().getSeparator();
-	private final static String BUG_CORPUS_FOLDER = "BugCorpus"
-			+ Property.getInstance().getSeparator();
+	// wvtool's StopWordsWrapper dropped the shorter words
+	private final static int MIN_LENGTH = 4;
 
-	public  void create() throws WVToolException, IOException {
+	/**
+	 * @return the vectors written to BugVector.txt, by bug id
+	 */
+	public Hashtable<Integer, SparseVector> create() throws IOException {
+		HashMap<String, Integer> termIds = new HashMap<String, Integer>();
+		List<String> terms = new ArrayList<String>();
+		List<String> bugIds = new ArrayList<String>();
+		// per bug: the sorted distinct term ids, their counts and the length
+		List<int[]> bugTerms = new ArrayList<int[]>();
+		List<int[]> bugCounts = new ArrayList<int[]>();
+		List<Integer> bugLengths = new ArrayList<Integer>();
+		int[] df = new int[1024];
+		LovinsStemmer stemmer = new LovinsStemmer();
+		HashMap<String, String> stems = new HashMap<String, String>();
 
-		WVTool wvt = new WVTool(false);
-		WVTConfiguration config = new WVTConfiguration();
-		final WVTStemmer porterStemmer = new PorterStemmerWrapper();
-		config.setConfigurationRule(WVTConfiguration.STEP_STEMMER,
-				new WVTConfigurationRule() {
-					public Object getMatchingComponent(WVTDocumentInfo d)
-							throws WVTConfigException {
-						return porterStemmer;
+		BugCorpusStore store = BugCorpusStore.open(Property.getInstance()
+				.getWorkDir());
+		BugCorpusStore.Cursor cursor = store.scan();
+		int[] ids = new int[256];
+		while (cursor.next()) {
+			String corpus = cursor.getCorpus();
+			int length = 0;
+			int start = 0;
+			while (start < corpus.length()) {
+				if (!Character.isLetter(corpus.charAt(start))) {
+					start++;
+					continue;
+				}
+				int end = start + 1;
+				while (end < corpus.length()
+						&& Character.isLetter(corpus.charAt(end))) {
+					end++;
+				}
+				String word = corpus.substring(start, end);
+				start = end;
+				if (word.length() >= MIN_LENGTH && !Stopwords.isStopword(word)) {
+					String term = stems.get(word);
+					if (term == null) {
+						term = stemmer.stemString(word);
+						stems.put(word, term);
 					}
-				});
-		WVTStemmer stemmer = new LovinsStemmerWrapper();
-		config.setConfigurationRule(WVTConfiguration.STEP_STEMMER,
-				new WVTConfigurationFact(stemmer));
-		WVTFileInputList list = new WVTFileInputList(1);
-
-		list.addEntry(new WVTDocumentInfo(HOME_FOLDER + BUG_CORPUS_FOLDER,
-				"txt", "", "english", 0));
-
-		WVTWordList wordList = wvt.createWordList(list, config);
-
-		wordList.pruneByFrequency(1, Integer.MAX_VALUE);
-
-		int termCount = wordList.getNumWords();
-		Property.getInstance().setBugTermCount(termCount);
-		wordList.storePlain(new FileWriter(HOME_FOLDER + "BugTermList.txt"));
+					Integer id = termIds.get(term);
+					if (id == null) {
+						id = terms.size();
+						termIds.put(term, id);
+						terms.add(term);
+					}
+					if (length == ids.length) {
+						ids = Arrays.copyOf(ids, length * 2);
+					}
+					ids[length++] = id;
+				}
+			}
+			if (df.length < terms.size()) {
+				df = Arrays.copyOf(df, Math.max(terms.size(), df.length * 2));
+			}
 
-		FileWriter outFile = new FileWriter(HOME_FOLDER + "BugVector.txt");
+			Arrays.sort(ids, 0, length);
+			int distinct = 0;
+			for (int i = 0; i < length; i++) {
+				if (i == 0 || ids[i] != ids[i - 1]) {
+					distinct++;
+				}
+			}
+			int[] distinctIds = new int[distinct];
+			int[] counts = new int[distinct];
+			int k = -1;
+			for (int i = 0; i < length; i++) {
+				if (i == 0 || ids[i] != ids[i - 1]) {
+					distinctIds[++k] = ids[i];
+					df[ids[i]]++;
+				}
+				counts[k]++;
+			}
+			bugIds.add(cursor.getBugId());
+			bugTerms.add(distinctIds);
+			bugCounts.add(counts);
+			bugLengths.add(length);
+		}
+		cursor.close();
+		store.close();
 
-		WordVectorWriter wvw = new WordVectorWriter(outFile, true);
+		Property.getInstance().setBugTermCount(terms.size());
+		FileWriter termWriter = new FileWriter(HOME_FOLDER + "BugTermList.txt");
+		for (String term : terms) {
+			termWriter.write(term + "\n");
+		}
+		termWriter.close();
 
-		config.setConfigurationRule(WVTConfiguration.STEP_OUTPUT,
-				new WVTConfigurationFact(wvw));
-		config.setConfigurationRule(WVTConfiguration.STEP_VECTOR_CREATION,
-				new WVTConfigurationFact(new TFIDF()));
+		int bugCount = bugIds.size();
+		Hashtable<Integer, SparseVector> vectors = new Hashtable<Integer, SparseVector>();
+		FileWriter writer = new FileWriter(HOME_FOLDER + "BugVector.txt");
+		for (int b = 0; b < bugCount; b++) {
+			int[] distinctIds = bugTerms.get(b);
+			int[] counts = bugCounts.get(b);
+			int length = bugLengths.get(b);
+			double[] weights = new double[distinctIds.length];
+			double norm = 0;
+			for (int i = 0; i < distinctIds.length; i++) {
+				weights[i] = (double) counts[i] / length
+						* Math.log((double) bugCount / df[distinctIds[i]]);
+				norm += weights[i] * weights[i];
+			}
+			norm = Math.sqrt(norm);
 
-		wvt.createVectors(list, config, wordList);
-		wvw.close();
-		outFile.close();
+			int nonZero = 0;
+			for (int i = 0; i < weights.length; i++) {
+				if (weights[i] != 0) {
+					nonZero++;
+				}
+			}
+			int[] indices = new int[nonZero];
+			float[] values = new float[nonZero];
+			StringBuffer line = new StringBuffer();
+			line.append(bugIds.get(b)).append(".txt;");
+			int n = 0;
+			for (int i = 0; i < weights.length; i++) {
+				if (weights[i] == 0) {
+					continue;
+				}
+				double weight = weights[i] / norm;
+				line.append(' ').append(distinctIds[i]).append(':').append(
+						weight);
+				indices[n] = distinctIds[i];
+				values[n++] = (float) weight;
+			}
+			writer.write(line.append('\n').toString());
+			vectors.put(Integer.parseInt(bugIds.get(b)), new SparseVector(
+					indices, values));
+		}
+		writer.close();
+		return vectors;
 	}
 }
@@ -0,0 +1,147 @@
+package bug;
+
+import java.util.HashMap;
+
+import utils.SparseVector;
+
+/**
+ * Locality sensitive hashing of bug vectors for cosine similarity, to find
+ * the likely similar bugs without comparing every pair. Each bit of the
+ * signature of a vector is the sign of its dot product with a random vector
+ * of +1 and -1 over the terms; two vectors at angle t agree on a bit with
+ * probability 1 - t / pi. The bits are cut into bands, and bugs that agree
+ * on all bits of at least one band are candidates.
+ * <p>
+ * The random vectors are not stored: the sign for a term and bit comes from
+ * a hash of both, so the vocabulary does not need to be known up front.
+ */
+public class SimilarBugIndex {
+	private final int bands;
+	private final int rows;
+	private final long seed;
+
+	// band and its bits to the rows added with them
+	private final HashMap<Long, Bucket> buckets = new HashMap<Long, Bucket>();
+
+	// rows already collected by the current candidates() call
+	private int[] seen = new int[1024];
+	private int stamp = 0;
+
+	private static class Bucket {
+		int[] rows = new int[2];
+		int size = 0;
+
+		void add(int row) {
+			if (size == rows.length) {
+				int[] larger = new int[size * 2];
+				System.arraycopy(rows, 0, larger, 0, size);
+				rows = larger;
+			}
+			rows[size++] = row;
+		}
+	}
+
+	/**
+	 * @param rows
+	 *            bits per band, at most 32
+	 */
+	public SimilarBugIndex(int bands, int rows, long seed) {
+		if (rows < 1 || rows > 32) {
+			throw new IllegalArgumentException("rows per band must be 1 to 32: "
+					+ rows);
+		}
+		this.bands = bands;
+		this.rows = rows;
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the bits of each band of the signature of the vector
+	 */
+	public int[] hash(SparseVector vector) {
+		int bits = bands * rows;
+		double[] sums = new double[bits];
+		int[] terms = vector.getIndices();
+		float[] weights = vector.getValues();
+		for (int t = 0; t < terms.length; t++) {
+			double weight = weights[t];
+			for (int chunk = 0; chunk * 64 < bits; chunk++) {
+				long signs = mix(seed + terms[t] * 0x9E3779B97F4A7C15L + chunk);
+				int end = Math.min(bits, chunk * 64 + 64);
+				for (int b = chunk * 64; b < end; b++) {
+					if ((signs & 1) != 0) {
+						sums[b] += weight;
+					} else {
+						sums[b] -= weight;
+					}
+					signs >>>= 1;
+				}
+			}
+		}
+		int[] keys = new int[bands];
+		for (int band = 0; band < bands; band++) {
+			int key = 0;
+			for (int r = 0; r < rows; r++) {
+				key = key << 1 | (sums[band * rows + r] >= 0 ? 1 : 0);
+			}
+			keys[band] = key;
+		}
+		return keys;
+	}
+
+	public void add(int row, int[] keys) {
+		for (int band = 0; band < bands; band++) {
+			Long key = bucketKey(band, keys[band]);
+			Bucket bucket = buckets.get(key);
+			if (bucket == null) {
+				bucket = new Bucket();
+				buckets.put(key, bucket);
+			}
+			bucket.add(row);
+		}
+	}
+
+	/**
+	 * Collects the rows added so far that share a band with the keys, each
+	 * once.
+	 * 
+	 * @return the number of rows put in {@code out}, which has to have room
+	 *         for all rows added
+	 */
+	public int candidates(int[] keys, int[] out) {
+		stamp++;
+		int count = 0;
+		for (int band = 0; band < bands; band++) {
+			Bucket bucket = buckets.get(bucketKey(band, keys[band]));
+			if (bucket == null) {
+				continue;
+			}
+			for (int i = 0; i < bucket.size; i++) {
+				int row = bucket.rows[i];
+				if (seen.length <= row) {
+					int[] larger = new int[Math.max(row + 1, seen.length * 2)];
+					System.arraycopy(seen, 0, larger, 0, seen.length);
+					seen = larger;
+				}
+				if (seen[row] != stamp) {
+					seen[row] = stamp;
+					out[count++] = row;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static Long bucketKey(int band, int bits) {
+		return ((long) band << 32) | (bits & 0xFFFFFFFFL);
+	}
+
+	// the finalizer of MurmurHash3
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb93fe53ec94dL;
+		return h ^ (h >>> 33);
+	}
+}
@@ -0,0 +1,112 @@
+package bug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The similar earlier bugs of every bug, in binary instead of the text of
+ * BugSimilarity.txt. BugSimilarity.dat holds one record per bug in SortedId
+ * order: the bug id, the number of similar bugs and then the id and
+ * similarity of each, in SortedId order as well.
+ */
+public class SimilarBugList {
+	public static final String FILE = "BugSimilarity.dat";
+
+	private DataOutputStream out;
+	private DataInputStream in;
+
+	private int bugId;
+	private int count;
+	private int[] similarIds = new int[16];
+	private float[] similarities = new float[16];
+
+	private SimilarBugList() {
+	}
+
+	/**
+	 * Starts an empty list in the directory, replacing any old one.
+	 */
+	public static SimilarBugList create(String dir) throws IOException {
+		SimilarBugList list = new SimilarBugList();
+		list.out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(dir, FILE))));
+		return list;
+	}
+
+	/**
+	 * Opens the list in the directory to read it from the first bug.
+	 */
+	public static SimilarBugList open(String dir) throws IOException {
+		SimilarBugList list = new SimilarBugList();
+		list.in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(new File(dir, FILE))));
+		return list;
+	}
+
+	public void append(int bugId, int[] similarIds, float[] similarities,
+			int count) throws IOException {
+		out.writeInt(bugId);
+		out.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			out.writeInt(similarIds[i]);
+			out.writeFloat(similarities[i]);
+		}
+	}
+
+	/**
+	 * @return false after the last bug
+	 */
+	public boolean next() throws IOException {
+		try {
+			bugId = in.readInt();
+		} catch (EOFException ex) {
+			return false;
+		}
+		count = in.readInt();
+		if (similarIds.length < count) {
+			similarIds = new int[count];
+			similarities = new float[count];
+		}
+		for (int i = 0; i < count; i++) {
+			similarIds[i] = in.readInt();
+			similarities[i] = in.readFloat();
+		}
+		return true;
+	}
+
+	public int getBugId() {
+		return bugId;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * The first {@link #getCount()} entries are those of the current bug;
+	 * the array is reused by the next call to {@link #next()}.
+	 */
+	public int[] getSimilarIds() {
+		return similarIds;
+	}
+
+	public float[] getSimilarities() {
+		return similarities;
+	}
+
+	public void close() throws IOException {
+		if (out != null) {
+			out.close();
+		}
+		if (in != null) {
+			in.close();
+		}
+	}
+}
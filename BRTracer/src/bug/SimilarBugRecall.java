@@ -0,0 +1,79 @@
+package bug;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import property.Property;
+
+/**
+ * Measures how many of the exact top K similar bugs the approximate search
+ * of {@link SimilarBugIndex} finds, to choose its bands and rows. It prints
+ * the recall and the time of every setting next to the exact search.
+ * <p>
+ * Usage: {@code SimilarBugRecall <workDir> <K> <bands>x<rows>...}, where the
+ * work dir holds SortedId.txt and BugVector.txt of a run, for example
+ * {@code SimilarBugRecall work 10 16x4 32x4 64x4 64x5}.
+ */
+public class SimilarBugRecall {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.out
+					.println("usage: SimilarBugRecall <workDir> <K> <bands>x<rows>...");
+			return;
+		}
+		String workDir = SimilarBugSweep.setUp(args[0]);
+		Property property = Property.getInstance();
+		int limit = Integer.parseInt(args[1]);
+		property.setSimilarBugLimit(limit > 0 ? limit : Integer.MAX_VALUE);
+
+		property.setApproximateSimilarBugs(false);
+		long start = System.currentTimeMillis();
+		new BugSimilarity().computeSimilarity();
+		System.out.println(String.format("exact   %6d ms", System
+				.currentTimeMillis()
+				- start));
+		HashMap<Integer, HashSet<Integer>> exact = read(workDir);
+
+		property.setApproximateSimilarBugs(true);
+		for (int i = 2; i < args.length; i++) {
+			String[] setting = args[i].split("x");
+			property.setLshBands(Integer.parseInt(setting[0]));
+			property.setLshRows(Integer.parseInt(setting[1]));
+			start = System.currentTimeMillis();
+			new BugSimilarity().computeSimilarity();
+			long time = System.currentTimeMillis() - start;
+			HashMap<Integer, HashSet<Integer>> approximate = read(workDir);
+
+			long expected = 0;
+			long found = 0;
+			for (Integer bugId : exact.keySet()) {
+				HashSet<Integer> neighbours = approximate.get(bugId);
+				for (Integer similarId : exact.get(bugId)) {
+					expected++;
+					if (neighbours.contains(similarId)) {
+						found++;
+					}
+				}
+			}
+			System.out.println(String.format("%-7s %6d ms  recall %5.1f%%",
+					args[i], time, expected == 0 ? 100.0 : found * 100.0
+							/ expected));
+		}
+	}
+
+	private static HashMap<Integer, HashSet<Integer>> read(String workDir)
+			throws Exception {
+		HashMap<Integer, HashSet<Integer>> neighbours = new HashMap<Integer, HashSet<Integer>>();
+		SimilarBugList list = SimilarBugList.open(workDir);
+		while (list.next()) {
+			HashSet<Integer> ids = new HashSet<Integer>();
+			for (int k = 0; k < list.getCount(); k++) {
+				ids.add(list.getSimilarIds()[k]);
+			}
+			neighbours.put(list.getBugId(), ids);
+		}
+		list.close();
+		return neighbours;
+	}
+}
@@ -0,0 +1,143 @@
+package bug;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import property.Property;
+
+/**
+ * Shows how keeping only the K most similar earlier bugs changes the
+ * ranking that the similar bugs alone give. For every K it prunes the bug
+ * similarities, ranks the files fixed by the kept bugs the way
+ * {@link SimilarityDistribution} scores them, and prints the size of the
+ * {@link SimilarBugList} with top 1, 5 and 10 accuracy, MAP and MRR against
+ * the files each bug really fixed.
+ * <p>
+ * Usage: {@code SimilarBugSweep <workDir> <K>...}, where the work dir holds
+ * SortedId.txt, FixLink.txt and BugVector.txt of a run and K 0 keeps every
+ * similar bug, for example {@code SimilarBugSweep work 0 5 10 20 50}.
+ */
+public class SimilarBugSweep {
+	private static final int[] TOP = { 1, 5, 10 };
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("usage: SimilarBugSweep <workDir> <K>...");
+			return;
+		}
+		String workDir = setUp(args[0]);
+		Hashtable<Integer, TreeSet<String>> fixedTable = new SimilarityDistribution()
+				.getFixedTable();
+
+		for (int i = 1; i < args.length; i++) {
+			int limit = Integer.parseInt(args[i]);
+			Property.getInstance().setSimilarBugLimit(
+					limit > 0 ? limit : Integer.MAX_VALUE);
+			long start = System.currentTimeMillis();
+			new BugSimilarity().computeSimilarity();
+			long time = System.currentTimeMillis() - start;
+			long bytes = new File(workDir, SimilarBugList.FILE).length();
+			report(limit > 0 ? String.valueOf(limit) : "all", bytes, time,
+					workDir, fixedTable);
+		}
+	}
+
+	private static void report(String limit, long bytes, long time,
+			String workDir, Hashtable<Integer, TreeSet<String>> fixedTable)
+			throws IOException {
+		int bugCount = 0;
+		int[] hits = new int[TOP.length];
+		double averagePrecision = 0;
+		double reciprocalRank = 0;
+
+		SimilarBugList list = SimilarBugList.open(workDir);
+		while (list.next()) {
+			final HashMap<String, Float> scores = new HashMap<String, Float>();
+			for (int k = 0; k < list.getCount(); k++) {
+				TreeSet<String> fileSet = fixedTable.get(list.getSimilarIds()[k]);
+				float singleValue = list.getSimilarities()[k] / fileSet.size();
+				for (String name : fileSet) {
+					Float score = scores.get(name);
+					scores.put(name, score == null ? singleValue : score
+							+ singleValue);
+				}
+			}
+			List<String> ranked = new ArrayList<String>(scores.keySet());
+			Collections.sort(ranked, new Comparator<String>() {
+				public int compare(String a, String b) {
+					int order = scores.get(b).compareTo(scores.get(a));
+					return order != 0 ? order : a.compareTo(b);
+				}
+			});
+
+			TreeSet<String> relevant = fixedTable.get(list.getBugId());
+			int found = 0;
+			int firstRank = 0;
+			double precision = 0;
+			for (int rank = 1; rank <= ranked.size(); rank++) {
+				if (relevant.contains(ranked.get(rank - 1))) {
+					found++;
+					precision += (double) found / rank;
+					if (firstRank == 0) {
+						firstRank = rank;
+					}
+				}
+			}
+			for (int t = 0; t < TOP.length; t++) {
+				if (firstRank > 0 && firstRank <= TOP[t]) {
+					hits[t]++;
+				}
+			}
+			averagePrecision += precision / relevant.size();
+			reciprocalRank += firstRank > 0 ? 1.0 / firstRank : 0;
+			bugCount++;
+		}
+		list.close();
+
+		StringBuffer tops = new StringBuffer();
+		for (int t = 0; t < TOP.length; t++) {
+			tops.append(String.format("  top%-2d %5.1f%%", TOP[t], hits[t]
+					* 100.0 / bugCount));
+		}
+		System.out.println(String.format(
+				"K %-5s %10d bytes %6d ms%s  MAP %.4f  MRR %.4f", limit, bytes,
+				time, tops, averagePrecision / bugCount, reciprocalRank
+						/ bugCount));
+	}
+
+	/**
+	 * Points the {@link Property} at the work dir of an earlier run, also
+	 * for {@link SimilarBugRecall}.
+	 * 
+	 * @return the absolute work dir
+	 */
+	static String setUp(String dir) throws IOException {
+		String workDir = new File(dir).getAbsolutePath();
+		if (Property.getInstance() == null) {
+			Property.createInstance("", "", workDir, 0.3f, "", "", 0);
+		}
+		Property.getInstance().setBugReportCount(countLines(workDir
+				+ Property.getInstance().getSeparator() + "SortedId.txt"));
+		return workDir;
+	}
+
+	private static int countLines(String path) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		int count = 0;
+		while (reader.readLine() != null) {
+			count++;
+		}
+		reader.close();
+		return count;
+	}
+}
@@ -13,6 +13,17 @@ public class SimilarityDistribution {
 	private String workDir = Property.getInstance().getWorkDir()
 			+ Property.getInstance().getSeparator();
 
+	// bug id to the ids of the classes it fixed, in FixLink order
+	private Hashtable<Integer, int[]> fixedClasses;
+	// class id to the ids of its segments in MethodName.txt
+	private int[][] classSegments;
+
+	// the scores of the current bug, only non-zero at the touched segments
+	private float[] scores;
+	private boolean[] touched;
+	private int[] touchedIds;
+	private int touchedCount;
+
 	public static void main(String[] args) {
 		SimilarityDistribution graph = new SimilarityDistribution();
 		try {
@@ -24,63 +35,136 @@ public class SimilarityDistribution {
 		}
 	}
 
+	/**
+	 * Spreads the similarity of every earlier bug over the files it fixed,
+	 * reading BugSimilarity.txt, or the {@link SimilarBugList} when the
+	 * similar bugs were pruned. The segments of each fixed class are looked
+	 * up once, so a bug costs only the segments its similar bugs reach.
+	 */
 	public void distribute() throws Exception, IOException {
-		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "BugSimilarity.txt"));
-		String line = null;
-		Hashtable<Integer, TreeSet<String>> fixedTable = this.getFixedTable();
-		Hashtable<String, Integer> idTable = getFileIdTable();
+		this.buildTables();
+		scores = new float[fileCount];
+		touched = new boolean[fileCount];
+		touchedIds = new int[fileCount];
 
 		FileWriter writer = new FileWriter(workDir
 				+ "SimiScore.txt");
 
-		while ((line = reader.readLine()) != null) {
-			float[] similarValues = new float[fileCount];
-			String idStr = line.substring(0, line.indexOf(";"));
-			String vectorStr = line.substring(line.indexOf(";") + 1).trim();
-			Integer id = Integer.parseInt(idStr);
-			String[] values = vectorStr.split(" ");
-
-			for (String value : values) {
-				String[] singleValues = value.split(":");
-				if (singleValues.length == 2) {
-					Integer simBugId = Integer.parseInt(singleValues[0]);
-					float sim = Float.parseFloat(singleValues[1]);
-					TreeSet<String> fileSet = fixedTable.get(simBugId);
-					if (fileSet == null) {
-						System.out.println(simBugId);
+		if (Property.getInstance().isPruneSimilarBugs()) {
+			SimilarBugList list = SimilarBugList.open(workDir);
+			while (list.next()) {
+				this.distribute(writer, list.getBugId(), list.getSimilarIds(),
+						list.getSimilarities(), list.getCount());
+			}
+			list.close();
+		} else {
+			BufferedReader reader = new BufferedReader(new FileReader(workDir
+					+ "BugSimilarity.txt"));
+			String line = null;
+			int[] simBugIds = new int[16];
+			float[] sims = new float[16];
+			while ((line = reader.readLine()) != null) {
+				String idStr = line.substring(0, line.indexOf(";"));
+				String vectorStr = line.substring(line.indexOf(";") + 1).trim();
+				Integer id = Integer.parseInt(idStr);
+				String[] values = vectorStr.split(" ");
+				if (simBugIds.length < values.length) {
+					simBugIds = new int[values.length];
+					sims = new float[values.length];
+				}
+				int count = 0;
+				for (String value : values) {
+					String[] singleValues = value.split(":");
+					if (singleValues.length == 2) {
+						simBugIds[count] = Integer.parseInt(singleValues[0]);
+						sims[count++] = Float.parseFloat(singleValues[1]);
 					}
-					Iterator<String> fileSetIt = fileSet.iterator();
-					int size = fileSet.size();
-					float singleValue = sim / size;
-					while (fileSetIt.hasNext()) {
-						String name = fileSetIt.next();
-						//change: add the singleValue to each segment belonged to that class
-						Integer counter = 0;
-						while(true){
-							Integer fileId = idTable.get(name+"@"+counter+".java");
-							if (fileId == null) {
-								if( counter==0 )
-									System.err.println(name);
-								break;
-							}
-							similarValues[fileId] += singleValue;
-							counter++;
-						}
+				}
+				this.distribute(writer, id, simBugIds, sims, count);
+			}
+			reader.close();
+		}
+		writer.close();
+	}
 
+	private void distribute(FileWriter writer, int id, int[] simBugIds,
+			float[] sims, int count) throws IOException {
+		for (int k = 0; k < count; k++) {
+			int[] classes = fixedClasses.get(simBugIds[k]);
+			if (classes == null) {
+				System.out.println(simBugIds[k]);
+				continue;
+			}
+			float singleValue = sims[k] / classes.length;
+			for (int classId : classes) {
+				//change: add the singleValue to each segment belonged to that class
+				for (int fileId : classSegments[classId]) {
+					if (!touched[fileId]) {
+						touched[fileId] = true;
+						touchedIds[touchedCount++] = fileId;
 					}
+					scores[fileId] += singleValue;
 				}
 			}
-			String output = id + ";";
-			for (int i = 0; i < fileCount; i++) {
-				if (similarValues[i] != 0) {
-					output += i + ":" + similarValues[i] + " ";
+		}
+
+		Arrays.sort(touchedIds, 0, touchedCount);
+		StringBuffer output = new StringBuffer();
+		output.append(id).append(';');
+		for (int i = 0; i < touchedCount; i++) {
+			int fileId = touchedIds[i];
+			if (scores[fileId] != 0) {
+				output.append(fileId).append(':').append(scores[fileId])
+						.append(' ');
+			}
+			scores[fileId] = 0;
+			touched[fileId] = false;
+		}
+		touchedCount = 0;
+		writer.write(output.toString().trim()
+				+ Property.getInstance().getLineSeparator());
+	}
+
+	private void buildTables() throws IOException {
+		Hashtable<String, Integer> idTable = this.getFileIdTable();
+		HashMap<String, Integer> classIds = new HashMap<String, Integer>();
+		List<int[]> segments = new ArrayList<int[]>();
+		fixedClasses = new Hashtable<Integer, int[]>();
+		for (Map.Entry<Integer, TreeSet<String>> entry : this.getFixedTable()
+				.entrySet()) {
+			int[] classes = new int[entry.getValue().size()];
+			int c = 0;
+			for (String name : entry.getValue()) {
+				Integer classId = classIds.get(name);
+				if (classId == null) {
+					classId = segments.size();
+					classIds.put(name, classId);
+					segments.add(this.getSegments(name, idTable));
 				}
+				classes[c++] = classId;
 			}
-			writer.write(output.trim() + Property.getInstance().getLineSeparator());
-			writer.flush();
+			fixedClasses.put(entry.getKey(), classes);
 		}
-		writer.close();
+		classSegments = segments.toArray(new int[segments.size()][]);
+	}
+
+	// the ids of name@0.java, name@1.java and so on up to the first missing
+	private int[] getSegments(String name, Hashtable<String, Integer> idTable) {
+		List<Integer> ids = new ArrayList<Integer>();
+		while (true) {
+			Integer fileId = idTable.get(name + "@" + ids.size() + ".java");
+			if (fileId == null) {
+				if (ids.isEmpty())
+					System.err.println(name);
+				break;
+			}
+			ids.add(fileId);
+		}
+		int[] segments = new int[ids.size()];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = ids.get(i);
+		}
+		return segments;
 	}
 
 	public Hashtable<Integer, TreeSet<String>> getFixedTable()
@@ -0,0 +1,68 @@
+package bug;
+
+/**
+ * One frame of a stack trace quoted in a bug report, e.g.
+ * {@code at org.eclipse.swt.custom.CLabel.findMnemonic(CLabel.java:194)}.
+ * Consecutive identical frames are kept once with a repeat count.
+ */
+public class StackFrame {
+	private final String className;
+	private final String methodName;
+	private final String fileName;
+	private final int lineNumber;
+	private int repeatCount = 1;
+
+	public StackFrame(String className, String methodName, String fileName,
+			int lineNumber) {
+		this.className = className;
+		this.methodName = methodName;
+		this.fileName = fileName;
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * @return the fully qualified class name, with $ for nested classes
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	/**
+	 * @return the file as quoted in the frame, or the text in its place such
+	 *         as "Native Method" or "Unknown Source"
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the line number, or -1 when the frame has none
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	public int getRepeatCount() {
+		return repeatCount;
+	}
+
+	public void setRepeatCount(int repeatCount) {
+		this.repeatCount = repeatCount;
+	}
+
+	public boolean isSameLocation(StackFrame other) {
+		return lineNumber == other.lineNumber
+				&& className.equals(other.className)
+				&& methodName.equals(other.methodName)
+				&& fileName.equals(other.fileName);
+	}
+
+	public String toString() {
+		return className + "." + methodName + "(" + fileName
+				+ (lineNumber < 0 ? "" : ":" + lineNumber) + ")";
+	}
+}
@@ -0,0 +1,163 @@
+package bug;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the stack frames quoted in a bug report in one pass over the text.
+ * A frame is "at", a qualified method name and the location in parentheses:
+ * "File.java:123", "Native Method" or "Unknown Source". Consecutive
+ * identical frames, as in deep recursion, are collapsed into one frame with
+ * a repeat count.
+ * <p>
+ * The frames of all bugs are kept in StackFrames.txt, one frame per line:
+ * bug id, class, method, file, line and repeat count separated by tabs.
+ */
+public class StackTraceParser {
+	// longest text accepted between the parentheses of a frame
+	private static final int MAX_LOCATION = 256;
+
+	public static List<StackFrame> parse(String text) {
+		List<StackFrame> frames = new ArrayList<StackFrame>();
+		if (text == null) {
+			return frames;
+		}
+		int i = 0;
+		while ((i = text.indexOf("at", i)) >= 0) {
+			int end = parseFrame(text, i, frames);
+			i = end > 0 ? end : i + 2;
+		}
+		return frames;
+	}
+
+	/**
+	 * @return the index after the frame that starts at {@code start}, or -1
+	 *         when there is no frame there
+	 */
+	private static int parseFrame(String text, int start,
+			List<StackFrame> frames) {
+		int length = text.length();
+		if (start > 0
+				&& Character.isJavaIdentifierPart(text.charAt(start - 1))) {
+			return -1;
+		}
+		int p = start + 2;
+		if (p >= length || !Character.isWhitespace(text.charAt(p))) {
+			return -1;
+		}
+		while (p < length && Character.isWhitespace(text.charAt(p))) {
+			p++;
+		}
+		int nameStart = p;
+		while (p < length) {
+			char c = text.charAt(p);
+			if (!(Character.isJavaIdentifierPart(c) || c == '.' || c == '<'
+					|| c == '>')) {
+				break;
+			}
+			p++;
+		}
+		int nameEnd = p;
+		while (p < length && text.charAt(p) == ' ') {
+			p++;
+		}
+		if (p >= length || text.charAt(p) != '(') {
+			return -1;
+		}
+		int open = p;
+		int close = -1;
+		for (p = open + 1; p < length && p <= open + MAX_LOCATION; p++) {
+			char c = text.charAt(p);
+			if (c == ')') {
+				close = p;
+				break;
+			}
+			if (c == '(') {
+				return -1;
+			}
+		}
+		if (close < 0) {
+			return -1;
+		}
+
+		String name = text.substring(nameStart, nameEnd);
+		int dot = name.lastIndexOf('.');
+		if (dot <= 0 || dot == name.length() - 1
+				|| !Character.isJavaIdentifierStart(name.charAt(0))) {
+			return -1;
+		}
+		String location = text.substring(open + 1, close).trim();
+		String fileName = location;
+		int lineNumber = -1;
+		int colon = location.lastIndexOf(':');
+		if (colon > 0) {
+			fileName = location.substring(0, colon).trim();
+			if (isNumber(location, colon + 1)) {
+				lineNumber = Integer.parseInt(location.substring(colon + 1)
+						.trim());
+			}
+		}
+		if (!isLocation(fileName)) {
+			return -1;
+		}
+
+		StackFrame frame = new StackFrame(name.substring(0, dot), name
+				.substring(dot + 1), fileName, lineNumber);
+		StackFrame last = frames.isEmpty() ? null : frames
+				.get(frames.size() - 1);
+		if (last != null && last.isSameLocation(frame)) {
+			last.setRepeatCount(last.getRepeatCount() + 1);
+		} else {
+			frames.add(frame);
+		}
+		return close + 1;
+	}
+
+	/**
+	 * A file name like "Foo.java", or the "Native Method" and "Unknown Source"
+	 * of frames without one. Rejects the parameter lists of method
+	 * signatures, which otherwise look like frames too.
+	 */
+	private static boolean isLocation(String fileName) {
+		if (fileName.equals("Native Method")
+				|| fileName.equals("Unknown Source")) {
+			return true;
+		}
+		int dot = fileName.lastIndexOf('.');
+		if (dot <= 0 || dot == fileName.length() - 1) {
+			return false;
+		}
+		for (int i = 0; i < fileName.length(); i++) {
+			char c = fileName.charAt(i);
+			if (!(Character.isJavaIdentifierPart(c) || c == '.' || c == '-')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNumber(String s, int from) {
+		String digits = s.substring(from).trim();
+		if (digits.length() == 0 || digits.length() > 9) {
+			return false;
+		}
+		for (int i = 0; i < digits.length(); i++) {
+			if (!Character.isDigit(digits.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static void write(FileWriter writer, String bugId,
+			List<StackFrame> frames, String lineSeparator) throws IOException {
+		for (StackFrame frame : frames) {
+			writer.write(bugId + "\t" + frame.getClassName() + "\t"
+					+ frame.getMethodName() + "\t" + frame.getFileName() + "\t"
+					+ frame.getLineNumber() + "\t" + frame.getRepeatCount()
+					+ lineSeparator);
+		}
+	}
+}
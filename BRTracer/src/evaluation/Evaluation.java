@@ -4,8 +4,9 @@ import java.io.*;
 import java.util.*;
 
 import property.Property;
-import sourcecode.CodeCorpusCreator_SpiltCorpus;
 import sourcecode.LenScore_OriginClass;
+import sourcecode.SourceScanner;
+import utils.FloatKernels;
 
 public class Evaluation {
 	private String workDir = Property.getInstance().getWorkDir()+Property.getInstance().getSeparator();
@@ -13,7 +14,7 @@ public class Evaluation {
 	private int bugCount = Property.getInstance().getBugReportCount();
 	private int originfilecount = Property.getInstance().getOriginFileCount();
 
-	Integer a = CodeCorpusCreator_SpiltCorpus.spiltclass;
+	Integer a = SourceScanner.spiltclass;
 	Integer b = LenScore_OriginClass.B;
 	private String outputFile = Property.getInstance().getOutputFile();
     private float alpha = 0.3f;
@@ -157,9 +158,9 @@ public class Evaluation {
 			TreeSet<String> fileSet = fixTable.get(vsmId);
 			Iterator<String> fileIt = fileSet.iterator();
 			Hashtable<Integer, String> fileIdTable = new Hashtable<>();
-			int i = 0;
+			int fileIndex = 0;
 			while (fileIt.hasNext()) {
-				i++;
+				fileIndex++;
 				String fileName = fileIt.next();
 				Scanner scanner = new Scanner(new File("path to Pytracer results/"+fileName)); //path to PyTrace result
 				Integer fileId = idTable.get(fileName);
@@ -169,7 +170,7 @@ public class Evaluation {
 					continue;
 				}
 				fileIdTable.put(fileId, fileName);
-				finalscore[i] = finalscore[i] + scanner.nextFloat();;
+				finalscore[fileIndex] = finalscore[fileIndex] + scanner.nextFloat();;
 			}
 			Rank[] sort = this.sort(finalscore);
 			for (int i = 0; i < sort.length; i++) {
@@ -336,25 +337,13 @@ public class Evaluation {
 
 	public float[] combine(float[] vsmVector, float[] graphVector, float f) {
 		float[] results = new float[fileCount];
-		for (int i = 0; i < fileCount; i++) {
-			results[i] = vsmVector[i] * (1 - f) + graphVector[i] * f;
-		}
+		FloatKernels.getInstance().combine(vsmVector, graphVector, f, results,
+				fileCount);
 		return results;
 	}
 
 	private float[] normalize(float[] array) {
-		float max = Float.MIN_VALUE;
-		float min = Float.MAX_VALUE;
-		for (int i = 0; i < array.length; i++) {
-			if (max < array[i])
-				max = array[i];
-			if (min > array[i])
-				min = array[i];
-		}
-		float span = max - min;
-		for (int i = 0; i < array.length; i++) {
-			array[i] = (array[i] - min) / span;
-		}
+		FloatKernels.getInstance().normalize(array, array.length);
 		return array;
 	}
 
@@ -14,6 +14,21 @@ public class Property {
 	private int originfilecount;
     private String project;
     private int aspectj_filename_offset;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private boolean scanContent = false;
+    private boolean parseCache = true;
+    private String parserBackend = "jdt";
+    private int stemCacheSize = 100000;
+    private boolean persistStemCache = false;
+    private int similarBugLimit = 0;
+    private float similarBugThreshold = 0;
+    private boolean approximateSimilarBugs = false;
+    private int lshBands = 32;
+    private int lshRows = 4;
+    private boolean exportText = false;
+    private int similarityBatchSize = 0;
+    private int similarityTopK = 0;
+    private boolean similarityTopKClasses = false;
 
     public String getProject(){
         return project;
@@ -23,6 +38,153 @@ public class Property {
         return aspectj_filename_offset;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    // 1 keeps every stage on the calling thread
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public boolean isScanContent() {
+        return scanContent;
+    }
+
+    // read source words with the JDT scanner instead of printing the AST
+    public void setScanContent(boolean scanContent) {
+        this.scanContent = scanContent;
+    }
+
+    public boolean isParseCache() {
+        return parseCache;
+    }
+
+    // reuse the parse of unchanged source files from ParseCache.dat
+    public void setParseCache(boolean parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    public String getParserBackend() {
+        return parserBackend;
+    }
+
+    // "jdt", "japa" or "lexer", see SourceParserFactory
+    public void setParserBackend(String parserBackend) {
+        this.parserBackend = parserBackend;
+    }
+
+    public int getStemCacheSize() {
+        return stemCacheSize;
+    }
+
+    // words kept by Stem, 0 turns its cache off
+    public void setStemCacheSize(int stemCacheSize) {
+        this.stemCacheSize = stemCacheSize;
+    }
+
+    public boolean isPersistStemCache() {
+        return persistStemCache;
+    }
+
+    // keep the stem cache in StemCache.txt in the work dir between runs
+    public void setPersistStemCache(boolean persistStemCache) {
+        this.persistStemCache = persistStemCache;
+    }
+
+    public int getSimilarBugLimit() {
+        return similarBugLimit;
+    }
+
+    // keep only this many most similar earlier bugs per bug, 0 keeps all
+    public void setSimilarBugLimit(int similarBugLimit) {
+        this.similarBugLimit = similarBugLimit;
+    }
+
+    public float getSimilarBugThreshold() {
+        return similarBugThreshold;
+    }
+
+    // keep only the earlier bugs more similar than this
+    public void setSimilarBugThreshold(float similarBugThreshold) {
+        this.similarBugThreshold = similarBugThreshold;
+    }
+
+    public boolean isApproximateSimilarBugs() {
+        return approximateSimilarBugs;
+    }
+
+    // compare each bug only with the earlier bugs an LSH index suggests,
+    // see SimilarBugIndex
+    public void setApproximateSimilarBugs(boolean approximateSimilarBugs) {
+        this.approximateSimilarBugs = approximateSimilarBugs;
+    }
+
+    public int getLshBands() {
+        return lshBands;
+    }
+
+    public void setLshBands(int lshBands) {
+        this.lshBands = lshBands;
+    }
+
+    public int getLshRows() {
+        return lshRows;
+    }
+
+    // signature bits per LSH band; more bits give fewer, closer candidates
+    public void setLshRows(int lshRows) {
+        this.lshRows = lshRows;
+    }
+
+    // with a limit, a threshold or the approximate search the similar bugs
+    // go to BugSimilarity.dat instead of BugSimilarity.txt
+    public boolean isPruneSimilarBugs() {
+        return similarBugLimit > 0 || similarBugThreshold > 0
+                || approximateSimilarBugs;
+    }
+
+    public boolean isExportText() {
+        return exportText;
+    }
+
+    // also write TermInfo.txt, TermInfo_OriginClass.txt and CodeVector.txt
+    // next to their binary SparseMatrixFile versions
+    public void setExportText(boolean exportText) {
+        this.exportText = exportText;
+    }
+
+    public int getSimilarityBatchSize() {
+        return similarityBatchSize;
+    }
+
+    // score this many bugs at a time against the code segments in VSM, at
+    // most all of them (e.g. Integer.MAX_VALUE); 0 scores them one by one.
+    // A batch holds a score for every segment of each of its bugs
+    public void setSimilarityBatchSize(int similarityBatchSize) {
+        this.similarityBatchSize = similarityBatchSize;
+    }
+
+    public int getSimilarityTopK() {
+        return similarityTopK;
+    }
+
+    // write only the best this many segments of every bug, to VSMTopK.txt
+    // instead of VSMScore.txt, which Core then does not evaluate; 0 scores
+    // all of them
+    public void setSimilarityTopK(int similarityTopK) {
+        this.similarityTopK = similarityTopK;
+    }
+
+    public boolean isSimilarityTopKClasses() {
+        return similarityTopKClasses;
+    }
+
+    // with a top K, rank classes by their best segment instead of segments
+    public void setSimilarityTopKClasses(boolean similarityTopKClasses) {
+        this.similarityTopKClasses = similarityTopKClasses;
+    }
+
 	public int getBugTermCount() {
 		return bugTermCount;
 	}
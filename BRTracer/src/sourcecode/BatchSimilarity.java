@@ -0,0 +1,206 @@
+package sourcecode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import utils.CsrMatrix;
+import utils.SparseVector;
+
+/**
+ * Scores a batch of bug vectors against all segments at once, as the product
+ * of the bugs-by-terms query matrix with the terms-by-segments postings of
+ * {@link CodePostings}.
+ * <p>
+ * The product is cut into tiles of {@link #BUG_BLOCK} bugs by
+ * {@link #SEGMENT_BLOCK} segments, whose scores stay in cache while every
+ * term of the block's bugs adds its postings in that segment range. Each
+ * postings list is so read once per tile instead of once per bug. With more
+ * than one thread the tiles are computed on a worker pool; they write
+ * disjoint parts of the result.
+ * <p>
+ * Every score gets its products added in increasing term order, like
+ * {@link CodePostings#score(int[], float[], int)}, so the scores are the
+ * same floats.
+ */
+public class BatchSimilarity {
+	public static final int BUG_BLOCK = 32;
+	// a tile of scores is 32 x 2048 floats, 256 KB
+	public static final int SEGMENT_BLOCK = 2048;
+
+	private final CsrMatrix postings;
+	private final int threadCount;
+
+	private int bugCount = 0;
+	private long multiplyAddCount = 0;
+	private long nanos = 0;
+
+	public BatchSimilarity(CsrMatrix postings, int threadCount) {
+		this.postings = postings;
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * @return the scores of the first {@code count} bugs, by segment id
+	 */
+	public float[][] score(SparseVector[] bugVectors, int count)
+			throws Exception {
+		long start = System.nanoTime();
+		int segmentCount = postings.getColumnCount();
+		final float[][] scores = new float[count][segmentCount];
+
+		List<Callable<Long>> tiles = new ArrayList<Callable<Long>>();
+		for (int firstBug = 0; firstBug < count; firstBug += BUG_BLOCK) {
+			final Block block = new Block(bugVectors, firstBug, Math.min(
+					count, firstBug + BUG_BLOCK));
+			for (int s = 0; s < segmentCount; s += SEGMENT_BLOCK) {
+				final int segmentStart = s;
+				final int segmentEnd = Math.min(segmentCount, s
+						+ SEGMENT_BLOCK);
+				tiles.add(new Callable<Long>() {
+					public Long call() {
+						return computeTile(block, segmentStart, segmentEnd,
+								scores);
+					}
+				});
+			}
+		}
+
+		if (threadCount > 1 && tiles.size() > 1) {
+			ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+			try {
+				for (Future<Long> tile : pool.invokeAll(tiles)) {
+					try {
+						multiplyAddCount += tile.get();
+					} catch (ExecutionException ex) {
+						if (ex.getCause() instanceof Exception)
+							throw (Exception) ex.getCause();
+						throw ex;
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		} else {
+			for (Callable<Long> tile : tiles) {
+				multiplyAddCount += tile.call();
+			}
+		}
+
+		bugCount += count;
+		nanos += System.nanoTime() - start;
+		return scores;
+	}
+
+	/**
+	 * Adds the postings of the block's terms between the segments to the
+	 * scores of the block's bugs.
+	 *
+	 * @return the number of multiply-adds
+	 */
+	private long computeTile(Block block, int segmentStart, int segmentEnd,
+			float[][] scores) {
+		int[] rowPointers = postings.getRowPointers();
+		int[] segments = postings.getColumns();
+		float[] segmentWeights = postings.getValues();
+		long multiplyAdds = 0;
+		for (int t = 0; t + 1 < block.termStarts.length; t++) {
+			int term = block.terms[t];
+			int first = block.termStarts[t];
+			int end = block.termStarts[t + 1];
+			int p = Arrays.binarySearch(segments, rowPointers[term],
+					rowPointers[term + 1], segmentStart);
+			if (p < 0) {
+				p = -p - 1;
+			}
+			int last = rowPointers[term + 1];
+			for (; p < last && segments[p] < segmentEnd; p++) {
+				int segment = segments[p];
+				float segmentWeight = segmentWeights[p];
+				for (int e = first; e < end; e++) {
+					scores[block.bugs[e]][segment] += block.weights[e]
+							* segmentWeight;
+				}
+				multiplyAdds += end - first;
+			}
+		}
+		return multiplyAdds;
+	}
+
+	public int getBugCount() {
+		return bugCount;
+	}
+
+	public long getMultiplyAddCount() {
+		return multiplyAddCount;
+	}
+
+	/**
+	 * @return bugs per second and multiply-adds per second over all batches
+	 */
+	public String getReport() {
+		double seconds = nanos / 1e9;
+		return "batch VSM: " + bugCount + " bugs in " + nanos / 1000000
+				+ "ms, " + (int) (bugCount / seconds) + " bugs/s, "
+				+ multiplyAddCount + " multiply-adds, "
+				+ (int) (multiplyAddCount / seconds / 1e6) + "M/s";
+	}
+
+	/**
+	 * The query entries of a block of bugs grouped by term: term i of
+	 * {@link #terms} has entries termStarts[i] to termStarts[i + 1] of
+	 * {@link #bugs} and {@link #weights}.
+	 */
+	private static class Block {
+		int[] terms;
+		int[] termStarts;
+		int[] bugs;
+		float[] weights;
+
+		Block(SparseVector[] bugVectors, int first, int end) {
+			int entryCount = 0;
+			for (int b = first; b < end; b++) {
+				entryCount += bugVectors[b].size();
+			}
+			// term in the high half, entry in the low half
+			long[] keys = new long[entryCount];
+			int[] entryBugs = new int[entryCount];
+			float[] entryWeights = new float[entryCount];
+			int e = 0;
+			for (int b = first; b < end; b++) {
+				int[] termIds = bugVectors[b].getIndices();
+				float[] values = bugVectors[b].getValues();
+				for (int i = 0; i < termIds.length; i++) {
+					keys[e] = (long) termIds[i] << 32 | e;
+					entryBugs[e] = b;
+					entryWeights[e++] = values[i];
+				}
+			}
+			Arrays.sort(keys);
+
+			bugs = new int[entryCount];
+			weights = new float[entryCount];
+			int[] termList = new int[entryCount];
+			int[] startList = new int[entryCount + 1];
+			int termCount = 0;
+			for (int i = 0; i < entryCount; i++) {
+				int term = (int) (keys[i] >>> 32);
+				int entry = (int) keys[i];
+				if (termCount == 0 || termList[termCount - 1] != term) {
+					termList[termCount] = term;
+					startList[termCount++] = i;
+				}
+				bugs[i] = entryBugs[entry];
+				weights[i] = entryWeights[entry];
+			}
+			startList[termCount] = entryCount;
+			terms = Arrays.copyOf(termList, termCount);
+			termStarts = Arrays.copyOf(startList, termCount + 1);
+		}
+	}
+}
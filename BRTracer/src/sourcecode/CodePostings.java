@@ -0,0 +1,138 @@
+package sourcecode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+import utils.CsrMatrix;
+import utils.SparseMatrixFile;
+import utils.SparseVector;
+
+/**
+ * The inverted index of the code vectors: CodePostings.dat is a
+ * {@link SparseMatrixFile} with a row per term, holding the weight of the
+ * term in every segment that has it, keyed by the segment id of
+ * MethodName.txt. Row names are empty; row r is term r of Wordlist.txt.
+ * <p>
+ * The postings are loaded once into a {@link CsrMatrix} when the index is
+ * opened. A query is scored term at a time, so only the postings of its own
+ * terms are read. Terms are walked in increasing id order, which adds up each
+ * segment's products in the same order as a dot product with its code vector
+ * and gives the same floats.
+ */
+public class CodePostings {
+	public static final String FILE_NAME = "CodePostings.dat";
+
+	private final CsrMatrix postings;
+
+	private CodePostings(CsrMatrix postings) {
+		this.postings = postings;
+	}
+
+	/**
+	 * Inverts CodeVector.dat in the work dir into CodePostings.dat.
+	 */
+	public static void write(String workDir, int segmentCount)
+			throws IOException {
+		Hashtable<String, Integer> segmentIds = readSegmentIds(workDir);
+		SparseMatrixFile vectors = SparseMatrixFile.open(new File(workDir
+				+ "CodeVector.dat"));
+		int termCount = vectors.getColumnCount();
+
+		// postings of term t are entries start[t] to start[t + 1], each the
+		// segment id in the high and the weight bits in the low half
+		int[] start = new int[termCount + 1];
+		for (int t = 0; t < termCount; t++) {
+			start[t + 1] = start[t] + vectors.getColumnFrequency(t);
+		}
+		long[] entries = new long[start[termCount]];
+		int[] fill = new int[termCount];
+		System.arraycopy(start, 0, fill, 0, termCount);
+		for (int row = 0; row < vectors.getRowCount(); row++) {
+			Integer segmentId = segmentIds.get(vectors.getName(row));
+			if (segmentId == null) {
+				System.out.println(vectors.getName(row));
+				continue;
+			}
+			SparseVector vector = vectors.getRow(row);
+			int[] terms = vector.getIndices();
+			float[] weights = vector.getValues();
+			for (int i = 0; i < terms.length; i++) {
+				entries[fill[terms[i]]++] = (long) segmentId << 32
+						| (Float.floatToIntBits(weights[i]) & 0xFFFFFFFFL);
+			}
+		}
+
+		SparseMatrixFile out = SparseMatrixFile.create(new File(workDir
+				+ FILE_NAME), segmentCount);
+		int[] segments = new int[segmentCount];
+		float[] weights = new float[segmentCount];
+		for (int t = 0; t < termCount; t++) {
+			Arrays.sort(entries, start[t], fill[t]);
+			int count = 0;
+			for (int e = start[t]; e < fill[t]; e++) {
+				segments[count] = (int) (entries[e] >>> 32);
+				weights[count++] = Float.intBitsToFloat((int) entries[e]);
+			}
+			out.add("", segments, weights, count);
+		}
+		out.close();
+	}
+
+	private static Hashtable<String, Integer> readSegmentIds(String workDir)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(workDir
+				+ "MethodName.txt"));
+		Hashtable<String, Integer> table = new Hashtable<String, Integer>();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String[] values = line.split("\t");
+			table.put(values[1].trim(), Integer.parseInt(values[0]));
+		}
+		reader.close();
+		return table;
+	}
+
+	public static CodePostings open(String workDir) throws IOException {
+		return new CodePostings(CsrMatrix.load(SparseMatrixFile.open(new File(
+				workDir + FILE_NAME))));
+	}
+
+	public int getSegmentCount() {
+		return postings.getColumnCount();
+	}
+
+	public int getTermCount() {
+		return postings.getRowCount();
+	}
+
+	/**
+	 * @return the postings by term, with the segment ids as columns
+	 */
+	public CsrMatrix getMatrix() {
+		return postings;
+	}
+
+	/**
+	 * Scores every segment against a query whose term ids are increasing.
+	 *
+	 * @return the score of each segment by id, 0 where no term matched
+	 */
+	public float[] score(int[] termIds, float[] weights, int count) {
+		float[] scores = new float[postings.getColumnCount()];
+		int[] rowPointers = postings.getRowPointers();
+		int[] segments = postings.getColumns();
+		float[] segmentWeights = postings.getValues();
+		for (int i = 0; i < count; i++) {
+			float weight = weights[i];
+			int end = rowPointers[termIds[i] + 1];
+			for (int p = rowPointers[termIds[i]]; p < end; p++) {
+				scores[segments[p]] += weight * segmentWeights[p];
+			}
+		}
+		return scores;
+	}
+}
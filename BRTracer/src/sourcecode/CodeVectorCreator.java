@@ -1,12 +1,13 @@
 package sourcecode;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 
 import property.Property;
+import utils.SparseMatrixFile;
+import utils.SparseVector;
 
 public class CodeVectorCreator {
 	private String workDir = Property.getInstance().getWorkDir()
@@ -21,34 +22,40 @@ public class CodeVectorCreator {
 		new CodeVectorCreator().create();
 	}
 
+	/**
+	 * Weights the term counts of TermInfo.dat into CodeVector.dat, a
+	 * {@link SparseMatrixFile} with a unit length row per segment, and into
+	 * CodeVector.txt too with {@link Property#isExportText()}. The vectors are
+	 * then inverted into {@link CodePostings}.
+	 */
 	public void create() throws IOException {
-		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "TermInfo.txt"));
-		String line = null;
-		FileWriter writer = new FileWriter(workDir + "CodeVector.txt");
-		while ((line = reader.readLine()) != null) {
-			String[] values = line.split(";");
-
-			String name = values[0].substring(0, values[0].indexOf("\t"));
-			if (values.length == 1) {
+		SparseMatrixFile termInfo = SparseMatrixFile.open(new File(workDir
+				+ "TermInfo.dat"));
+		SparseMatrixFile vectors = SparseMatrixFile.create(new File(workDir
+				+ "CodeVector.dat"), termInfo.getColumnCount());
+		FileWriter writer = null;
+		if (Property.getInstance().isExportText()) {
+			writer = new FileWriter(workDir + "CodeVector.txt");
+		}
+		for (int row = 0; row < termInfo.getRowCount(); row++) {
+			String name = termInfo.getName(row);
+			SparseVector counts = termInfo.getRow(row);
+			if (counts.size() == 0) {
 				System.out.println(name + ";");
 				continue;
 			}
-			Integer totalTermCount = Integer.parseInt(values[0]
-					.substring(values[0].indexOf("\t") + 1));
-			String[] termInfos = values[1].split("\t");
-			float[] vector = new float[codeTermCount];
-			for (String str : termInfos) {
-				String[] strs = str.split(":");
-				Integer termId = Integer.parseInt(strs[0]);
-				Integer termCount = Integer.parseInt(strs[1].substring(0,
-						strs[1].indexOf(" ")));
-				Integer documentCount = Integer.parseInt(strs[1]
-						.substring(strs[1].indexOf(" ") + 1));
-
-				float tf = this.getTfValue(termCount, totalTermCount);
+			int[] termIds = counts.getIndices();
+			float[] termCounts = counts.getValues();
+			int totalTermCount = 0;
+			for (float termCount : termCounts) {
+				totalTermCount += (int) termCount;
+			}
+			float[] vector = new float[termIds.length];
+			for (int i = 0; i < termIds.length; i++) {
+				int documentCount = termInfo.getColumnFrequency(termIds[i]);
+				float tf = this.getTfValue((int) termCounts[i], totalTermCount);
 				float idf = this.getIdfValue(documentCount, fileCount);
-				vector[termId] = tf * idf;
+				vector[i] = tf * idf;
 			}
 			double norm = 0.0f;
 			for (int i = 0; i < vector.length; i++) {
@@ -56,18 +63,31 @@ public class CodeVectorCreator {
 			}
 			norm = Math.sqrt(norm);
 
-			StringBuffer buf = new StringBuffer();
-			buf.append(name + ";");
+			int[] columns = new int[vector.length];
+			float[] weights = new float[vector.length];
+			int count = 0;
 			for (int i = 0; i < vector.length; i++) {
 				if (vector[i] != 0.0f) {
 					vector[i] = vector[i] / (float) norm;
-					buf.append(i + ":" + vector[i] + " ");
+					columns[count] = termIds[i];
+					weights[count++] = vector[i];
 				}
 			}
-			writer.write(buf.toString() + lineSparator);
-			writer.flush();
+			vectors.add(name, columns, weights, count);
+			if (writer != null) {
+				StringBuffer buf = new StringBuffer();
+				buf.append(name + ";");
+				for (int i = 0; i < count; i++) {
+					buf.append(columns[i] + ":" + weights[i] + " ");
+				}
+				writer.write(buf.toString() + lineSparator);
+			}
+		}
+		vectors.close();
+		if (writer != null) {
+			writer.close();
 		}
-		writer.close();
+		CodePostings.write(workDir, fileCount);
 	}
 
 	private float getTfValue(int freq, int totalTermCount) {
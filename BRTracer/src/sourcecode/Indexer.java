@@ -1,35 +1,60 @@
 package sourcecode;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
+import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.TreeSet;
+import java.util.List;
 
 import property.Property;
+import utils.SparseMatrixFile;
 
+/**
+ * Indexes the code corpus at both granularities: the segments of
+ * CodeCorpus.txt into Wordlist.txt, IDC.txt and TermInfo.dat, and the whole
+ * classes of CodeCorpus_OriginClass.txt into TermInfo_OriginClass.dat. Each
+ * corpus is read once; its documents are kept as word ids while the
+ * document counts are summed, and TermInfo is written from memory.
+ * <p>
+ * The TermInfo files are {@link SparseMatrixFile}s with a row of term counts
+ * per document; the number of rows with a term is its document count. With
+ * {@link Property#isExportText()} the old text versions are written too.
+ */
 public class Indexer {
 	private String workDir = Property.getInstance().getWorkDir()
 			+ Property.getInstance().getSeparator();
 	private String lineSparator = Property.getInstance().getLineSeparator();
 
+	/**
+	 * The documents of a corpus file, with every word as the index of its
+	 * first occurrence in the file.
+	 */
+	private static class Corpus {
+		List<String> names = new ArrayList<String>();
+		List<int[]> documents = new ArrayList<int[]>();
+		List<String> words = new ArrayList<String>();
+		// countTable: count how many times a word occurs in all files
+		Hashtable<String, Integer> countTable = new Hashtable<String, Integer>();
+	}
+
 	public static void main(String[] args) throws IOException {
 		
 	}
 
 	public void index() throws IOException {
-        // countTable: count how many times a word occurs in all files
-		Hashtable<String, Integer> countTable = countDoc();
+		Corpus segments = this.read("CodeCorpus.txt");
 		Hashtable<String, Integer> idSet = new Hashtable<String, Integer>();
 		int id = 0;
 		FileWriter writerWord = new FileWriter(workDir + "Wordlist.txt");
 		int wordCount = 0;
-		for (String key : countTable.keySet()) {
+		for (String key : segments.countTable.keySet()) {
 			idSet.put(key, id);
 			writerWord.write(key + "\t" + id + lineSparator);
-			writerWord.flush();
 			id++;
 			wordCount++;
 		}
@@ -38,86 +63,140 @@ public class Indexer {
 
         // IDC.txt tells how many time a word occurs in all files
 		FileWriter writerDoc = new FileWriter(workDir + "IDC.txt");
-		for (String key : countTable.keySet()) {
-			writerDoc.write(key + "\t" + countTable.get(key) + lineSparator);
-			writerDoc.flush();
+		for (String key : segments.countTable.keySet()) {
+			writerDoc.write(key + "\t" + segments.countTable.get(key)
+					+ lineSparator);
 		}
 		writerDoc.close();
 
+		this.writeTermInfo(segments, idSet, "TermInfo");
+
+		// the whole classes number their terms on their own
+		Corpus classes = this.read("CodeCorpus_OriginClass.txt");
+		Hashtable<String, Integer> classIdSet = new Hashtable<String, Integer>();
+		id = 0;
+		for (String key : classes.countTable.keySet()) {
+			classIdSet.put(key, id++);
+		}
+		this.writeTermInfo(classes, classIdSet, "TermInfo_OriginClass");
+	}
+
+	private Corpus read(String fileName) throws IOException {
+		Corpus corpus = new Corpus();
+		HashMap<String, Integer> wordIds = new HashMap<String, Integer>();
 		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "CodeCorpus.txt"));
+				+ fileName));
 		String line = null;
-		FileWriter writer = new FileWriter(workDir + "TermInfo.txt");
+		int[] document = new int[1024];
 		while ((line = reader.readLine()) != null) {
 			String[] values = line.split("\t");
 			String[] words = values[1].split(" ");
-			int totalCount = 0;
-
-			Hashtable<Integer, Integer> termTable = new Hashtable<Integer, Integer>();
+			int length = 0;
 			for (String word : words) {
 				if (!word.trim().equals("")) {
-					totalCount++;
-					Integer termId = idSet.get(word);
-					if (termTable.containsKey(termId)) {
-						Integer count = termTable.get(termId);
-						count++;
-						termTable.remove(termId);
-						termTable.put(termId, count);
-					} else {
-						termTable.put(termId, 1);
+					Integer wordId = wordIds.get(word);
+					if (wordId == null) {
+						wordId = corpus.words.size();
+						wordIds.put(word, wordId);
+						corpus.words.add(word);
 					}
-				}
-			}
-			StringBuffer output = new StringBuffer();
-			output.append(values[0] + "\t" + totalCount + ";");
-			TreeSet<Integer> tmp = new TreeSet<Integer>();
-			for (String word : words) {
-				if (!word.trim().equals("")) {
-					Integer termId = idSet.get(word);
-					if (!tmp.contains(termId)) {
-						tmp.add(termId);
-						int termCount = termTable.get(termId);
-                        // documentCount means how many times a word occurs in all files
-						int documentCount = countTable.get(word);
-						output.append(termId + ":" + termCount + " "
-								+ documentCount + "\t");
+					if (length == document.length) {
+						document = Arrays.copyOf(document, length * 2);
 					}
+					document[length++] = wordId;
 				}
 			}
-			writer.write(output.toString() + lineSparator);
-			writer.flush();
+			corpus.names.add(values[0]);
+			corpus.documents.add(Arrays.copyOf(document, length));
+			this.count(corpus, document, length);
 		}
-		writer.close();
+		reader.close();
+		return corpus;
 	}
 
-	public Hashtable<String, Integer> countDoc() throws IOException {
-		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "CodeCorpus.txt"));
-		String line = null;
+	/**
+	 * Adds one to the count of every distinct word of the document. The
+	 * words are counted in sorted order and each count is removed and put
+	 * again, which keeps the iteration order of the table, and so the term
+	 * ids, the same as they always were.
+	 */
+	private void count(Corpus corpus, int[] document, int length) {
+		int[] distinct = Arrays.copyOf(document, length);
+		Arrays.sort(distinct);
+		List<String> wordSet = new ArrayList<String>();
+		for (int i = 0; i < length; i++) {
+			if (i == 0 || distinct[i] != distinct[i - 1]) {
+				wordSet.add(corpus.words.get(distinct[i]));
+			}
+		}
+		String[] sorted = wordSet.toArray(new String[wordSet.size()]);
+		Arrays.sort(sorted);
+		for (String word : sorted) {
+			Integer count = corpus.countTable.remove(word);
+			corpus.countTable.put(word, count == null ? 1 : count + 1);
+		}
+	}
 
-		Hashtable<String, Integer> countTable = new Hashtable<String, Integer>();
+	private void writeTermInfo(Corpus corpus, Hashtable<String, Integer> idSet,
+			String fileName) throws IOException {
+		int[] termIds = new int[corpus.words.size()];
+		int[] documentCounts = new int[corpus.words.size()];
+		for (int i = 0; i < termIds.length; i++) {
+			String word = corpus.words.get(i);
+			termIds[i] = idSet.get(word);
+			documentCounts[i] = corpus.countTable.get(word);
+		}
 
-		while ((line = reader.readLine()) != null) {
-			String[] values = line.split("\t");
-			String[] words = values[1].split(" ");
-			TreeSet<String> wordSet = new TreeSet<String>();
-			for (String word : words) {
-				if (!word.trim().equals("") && !wordSet.contains(word)) {
-					wordSet.add(word);
+		int[] termCounts = new int[corpus.words.size()];
+		// term id and count of each term of a document, to sort by id
+		long[] row = new long[corpus.words.size()];
+		// the words of a document in the order they first occur
+		int[] firstWords = new int[corpus.words.size()];
+		int[] rowTerms = new int[corpus.words.size()];
+		float[] rowCounts = new float[corpus.words.size()];
+		SparseMatrixFile matrix = SparseMatrixFile.create(new File(workDir
+				+ fileName + ".dat"), idSet.size());
+		FileWriter writer = null;
+		if (Property.getInstance().isExportText()) {
+			writer = new FileWriter(workDir + fileName + ".txt");
+		}
+		for (int d = 0; d < corpus.documents.size(); d++) {
+			int[] document = corpus.documents.get(d);
+			for (int word : document) {
+				termCounts[word]++;
+			}
+			// each term once, where it first occurs
+			int distinct = 0;
+			for (int word : document) {
+				if (termCounts[word] > 0) {
+					firstWords[distinct] = word;
+					row[distinct++] = (long) termIds[word] << 32
+							| termCounts[word];
+					termCounts[word] = 0;
 				}
 			}
-			for (String word : wordSet) {
-				if (countTable.containsKey(word)) {
-					Integer count = countTable.get(word);
-					count++;
-					countTable.remove(word);
-					countTable.put(word, count);
-				} else {
-					countTable.put(word, 1);
+			if (writer != null) {
+				StringBuffer output = new StringBuffer();
+				output.append(corpus.names.get(d)).append('\t').append(
+						document.length).append(';');
+				for (int i = 0; i < distinct; i++) {
+                    // documentCount means how many times a word occurs in all files
+					output.append(termIds[firstWords[i]]).append(':').append(
+							(int) row[i]).append(' ').append(
+							documentCounts[firstWords[i]]).append('\t');
 				}
+				writer.write(output.toString() + lineSparator);
 			}
+			Arrays.sort(row, 0, distinct);
+			for (int i = 0; i < distinct; i++) {
+				rowTerms[i] = (int) (row[i] >>> 32);
+				rowCounts[i] = (int) row[i];
+			}
+			matrix.add(corpus.names.get(d), rowTerms, rowCounts, distinct);
 		}
-
-		return countTable;
+		if (writer != null) {
+			writer.close();
+		}
+		matrix.close();
 	}
 }
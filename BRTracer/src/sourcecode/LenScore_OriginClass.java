@@ -1,7 +1,6 @@
 package sourcecode;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -10,6 +9,7 @@ import java.util.Collections;
 import java.util.Hashtable;
 
 import property.Property;
+import utils.SparseMatrixFile;
 
 public class LenScore_OriginClass {
     private String workDir = Property.getInstance().getWorkDir()
@@ -29,20 +29,20 @@ public class LenScore_OriginClass {
     }
 
     public void computeLenScore() throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(workDir
-                + "TermInfo_OriginClass.txt"));
-        String line = null;
+        SparseMatrixFile termInfo = SparseMatrixFile.open(new File(workDir
+                + "TermInfo_OriginClass.dat"));
         double max = Double.MIN_VALUE;
         double min = Double.MAX_VALUE;
         Integer[] lens = new Integer[fileCount];
         int i = 0;
         Hashtable<String, Integer> lensTable = new Hashtable<String, Integer>();
         int count = 0;
-        while ((line = reader.readLine()) != null) {
-            String[] values = line.split(";");
-            String name = values[0].substring(0, values[0].indexOf("\t"));
-            Integer len = Integer.parseInt(values[0].substring(values[0]
-                    .indexOf("\t") + 1));
+        for (int row = 0; row < termInfo.getRowCount(); row++) {
+            String name = termInfo.getName(row);
+            Integer len = 0;
+            for (float termCount : termInfo.getRow(row).getValues()) {
+                len += (int) termCount;
+            }
             lensTable.put(name, len);
             lens[i++] = len;
             if (len != 0)
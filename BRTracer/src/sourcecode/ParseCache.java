@@ -0,0 +1,206 @@
+package sourcecode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sourcecode.ast.ParsedFile;
+
+/**
+ * Keeps the {@link ParsedFile} of every source file between runs, keyed by
+ * the file path and the MD5 of its content. The cache file starts with a
+ * configuration key; when the configuration that shapes the parse result
+ * changes the whole cache is dropped.
+ * <p>
+ * Only the entries looked up during a run are saved, so deleted files do not
+ * pile up in the cache.
+ */
+public class ParseCache {
+	private static final String MAGIC = "BRTracer parse cache";
+	// bump when the layout of the cache file changes; a change to what the
+	// analysis writes into a ParsedFile (Splitter, Stopword, Stem, Analyzer)
+	// must bump Analyzer.VERSION instead, whose fingerprint is part of the
+	// config key
+	private static final int VERSION = 1;
+
+	private final File cacheFile;
+	private final String config;
+
+	private Map<String, Entry> stored = new ConcurrentHashMap<String, Entry>();
+	private Map<String, Entry> used = new ConcurrentHashMap<String, Entry>();
+
+	private AtomicInteger hits = new AtomicInteger();
+	private AtomicInteger misses = new AtomicInteger();
+
+	private static class Entry {
+		byte[] hash;
+		ParsedFile parsed;
+
+		Entry(byte[] hash, ParsedFile parsed) {
+			this.hash = hash;
+			this.parsed = parsed;
+		}
+	}
+
+	public ParseCache(File cacheFile, String config) {
+		this.cacheFile = cacheFile;
+		this.config = config;
+	}
+
+	public void load() {
+		if (!cacheFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(cacheFile)));
+			if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION
+					|| !config.equals(readString(in))) {
+				System.out.println("parse cache was written with another "
+						+ "configuration, ignoring it");
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String path = readString(in);
+				byte[] hash = new byte[in.readInt()];
+				in.readFully(hash);
+				ParsedFile parsed = new ParsedFile();
+				parsed.setFileName(readString(in));
+				parsed.setJavaFileFullClassName(readString(in));
+				parsed.setContent(readString(in));
+				parsed.setNames(readString(in));
+				parsed.setImports(readString(in));
+				parsed.setLinesOfCode(in.readInt());
+				stored.put(path, new Entry(hash, parsed));
+			}
+		} catch (IOException ex) {
+			System.out.println("parse cache is unreadable, ignoring it: "
+					+ ex.getMessage());
+			stored.clear();
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * @return the content hash of the file, which is passed back to
+	 *         {@link #put(File, byte[], ParsedFile)} on a miss
+	 */
+	public byte[] hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException(ex.getMessage());
+		}
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return the cached result for the file, or null when the file is new or
+	 *         its content changed
+	 */
+	public ParsedFile get(File file, byte[] hash) {
+		String path = file.getAbsolutePath();
+		Entry entry = stored.get(path);
+		if (entry == null || !Arrays.equals(entry.hash, hash)) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		used.put(path, entry);
+		return entry.parsed;
+	}
+
+	public void put(File file, byte[] hash, ParsedFile parsed) {
+		used.put(file.getAbsolutePath(), new Entry(hash, parsed));
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+
+	public void save() throws IOException {
+		File tmpFile = new File(cacheFile.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(tmpFile)));
+		try {
+			out.writeUTF(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, config);
+			out.writeInt(used.size());
+			for (Map.Entry<String, Entry> e : used.entrySet()) {
+				Entry entry = e.getValue();
+				ParsedFile parsed = entry.parsed;
+				writeString(out, e.getKey());
+				out.writeInt(entry.hash.length);
+				out.write(entry.hash);
+				writeString(out, parsed.getFileName());
+				writeString(out, parsed.getJavaFileFullClassName());
+				writeString(out, parsed.getContent());
+				writeString(out, parsed.getNames());
+				writeString(out, parsed.getImports());
+				out.writeInt(parsed.getLinesOfCode());
+			}
+		} finally {
+			out.close();
+		}
+		// replace the old cache only once the new one is complete
+		cacheFile.delete();
+		if (!tmpFile.renameTo(cacheFile)) {
+			throw new IOException("cannot write " + cacheFile);
+		}
+	}
+
+	// writeUTF is limited to 64K, which a large file's content exceeds
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] bytes = s.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+}
@@ -2,139 +2,223 @@ package sourcecode;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Hashtable;
 
 import property.Property;
+import utils.SparseVector;
+import bug.BugCorpusStore;
 
 public class Similarity {
-	Hashtable<String, Integer> fileIdTable = null;
 	private String workDir = Property.getInstance().getWorkDir()
 			+ Property.getInstance().getSeparator();
 	private String lineSparator = Property.getInstance().getLineSeparator();
 
 	public int fileCount = Property.getInstance().getFileCount();
 	public int codeTermCount = Property.getInstance().getWordCount();
+	private CodePostings postings;
 
 	public Similarity() throws IOException {
 
 	}
 
-	public void compute() throws IOException {
-		fileIdTable = getFileId();
+	/**
+	 * Scores every bug of SortedId.txt against all segments into
+	 * VSMScore.txt, one bug at a time or, with
+	 * {@link Property#getSimilarityBatchSize()}, a batch of bugs at a time
+	 * with {@link BatchSimilarity}. Both give the same scores.
+	 * <p>
+	 * With {@link Property#getSimilarityTopK()}, only the best segments or
+	 * classes of every bug are found, with a {@link TopKSearcher}, and written
+	 * best first to VSMTopK.txt instead, and any old VSMScore.txt is deleted.
+	 */
+	public void compute() throws Exception {
+		postings = CodePostings.open(workDir);
+		System.out.println("code postings: "
+				+ postings.getMatrix().getMemoryReport());
 		Hashtable<String, Integer> wordIdTable = getWordId();
 		Hashtable<String, Integer> idcTable = getIDCTable();
 
-		FileWriter writer = new FileWriter(workDir + "VSMScore.txt");
+		int topK = Property.getInstance().getSimilarityTopK();
+		if (topK > 0) {
+			// not written in this mode; Evaluation must not read an old one
+			new File(workDir + "VSMScore.txt").delete();
+		}
+		FileWriter writer = new FileWriter(workDir
+				+ (topK > 0 ? "VSMTopK.txt" : "VSMScore.txt"));
 		BufferedReader readerId = new BufferedReader(new FileReader(workDir
 				+ "SortedId.txt"));
+		BugCorpusStore store = BugCorpusStore.open(Property.getInstance()
+				.getWorkDir());
+		int batchSize = Property.getInstance().getSimilarityBatchSize();
+		BatchSimilarity batch = null;
+		TopKSearcher searcher = null;
+		int[] topIds = new int[topK];
+		float[] topScores = new float[topK];
+		if (topK > 0) {
+			searcher = new TopKSearcher(postings.getMatrix(), Property
+					.getInstance().isSimilarityTopKClasses() ? getClasses()
+					: null);
+		} else if (batchSize > 0) {
+			batch = new BatchSimilarity(postings.getMatrix(), Property
+					.getInstance().getThreadCount());
+		}
+		// a batch never needs more than every bug
+		Integer[] bugIds = new Integer[Math.max(1, Math.min(batchSize,
+				Property.getInstance().getBugReportCount()))];
+		SparseVector[] bugVectors = new SparseVector[bugIds.length];
+		int count = 0;
 		String idLine = null;
 		while ((idLine = readerId.readLine()) != null) {
 			Integer bugId = Integer.parseInt(idLine.substring(0,
 					idLine.indexOf("\t")));
-			BufferedReader readerBug = new BufferedReader(new FileReader(
-					workDir + "BugCorpus"
-							+ Property.getInstance().getSeparator() + bugId
-							+ ".txt"));
-			String line = readerBug.readLine();
-			String[] words = line.split(" ");
-
-			Hashtable<String, Integer> wordTable = new Hashtable<String, Integer>();
-			for (String word : words) {
-				if (!word.trim().equals("")) {
-					if (wordTable.containsKey(word)) {
-						Integer count = wordTable.get(word);
-						count++;
-						wordTable.remove(word);
-						wordTable.put(word, count);
-					} else {
-						wordTable.put(word, 1);
-					}
+			SparseVector bugVector = getBugVector(store.get(String
+					.valueOf(bugId)), wordIdTable, idcTable);
+			if (searcher != null) {
+				int found = searcher.search(bugVector.getIndices(), bugVector
+						.getValues(), bugVector.size(), topK, topIds, topScores);
+				StringBuffer buf = new StringBuffer();
+				buf.append(bugId + ";");
+				for (int i = 0; i < found; i++) {
+					buf.append(topIds[i] + ":" + topScores[i] + " ");
 				}
+				writer.write(buf.toString().trim() + lineSparator);
+				continue;
 			}
-			int totalTermCount = 0;
-			for (String word : wordTable.keySet()) {
-				Integer id = wordIdTable.get(word);
-				if (id != null) {
-					totalTermCount += wordTable.get(word);
-				}
+			if (batch == null) {
+				write(writer, bugId, postings.score(bugVector.getIndices(),
+						bugVector.getValues(), bugVector.size()));
+				continue;
 			}
-			float[] bugVector = new float[codeTermCount];
+			bugIds[count] = bugId;
+			bugVectors[count++] = bugVector;
+			if (count == bugIds.length) {
+				writeBatch(writer, batch, bugIds, bugVectors, count);
+				count = 0;
+			}
+		}
+		if (batch != null) {
+			writeBatch(writer, batch, bugIds, bugVectors, count);
+			System.out.println(batch.getReport());
+		}
+		if (searcher != null) {
+			System.out.println("top-K VSM: scored " + searcher.getScoredCount()
+					+ " of " + searcher.getVisitedCount()
+					+ " segments visited");
+		}
+		readerId.close();
+		store.close();
+		writer.close();
+	}
 
-			for (String word : wordTable.keySet()) {
-				Integer id = wordIdTable.get(word);
-				if (id != null) {
-					Integer idc = idcTable.get(word);
+	private void writeBatch(FileWriter writer, BatchSimilarity batch,
+			Integer[] bugIds, SparseVector[] bugVectors, int count)
+			throws Exception {
+		float[][] simValues = batch.score(bugVectors, count);
+		for (int b = 0; b < count; b++) {
+			write(writer, bugIds[b], simValues[b]);
+		}
+	}
+
+	private void write(FileWriter writer, Integer bugId, float[] simValues)
+			throws IOException {
+		StringBuffer buf = new StringBuffer();
+		buf.append(bugId + ";");
+		for (int i = 0; i < simValues.length; i++) {
+			if (simValues[i] != 0.0f)
+				buf.append(i + ":" + simValues[i] + " ");
+		}
+		writer.write(buf.toString().trim() + lineSparator);
+		writer.flush();
+	}
+
+	/**
+	 * @return the unit length tf-idf vector of the bug corpus over the code
+	 *         terms, by increasing term id
+	 */
+	private SparseVector getBugVector(String line,
+			Hashtable<String, Integer> wordIdTable,
+			Hashtable<String, Integer> idcTable) {
+		String[] words = line.split(" ");
+
+		Hashtable<String, Integer> wordTable = new Hashtable<String, Integer>();
+		for (String word : words) {
+			if (!word.trim().equals("")) {
+				if (wordTable.containsKey(word)) {
 					Integer count = wordTable.get(word);
-					float tf = getTfValue(count, totalTermCount);
-					float idf = getIdfValue(idc, fileCount);
-					bugVector[id] = tf * idf;
+					count++;
+					wordTable.remove(word);
+					wordTable.put(word, count);
+				} else {
+					wordTable.put(word, 1);
 				}
 			}
-			double norm = 0.0f;
-			for (int i = 0; i < bugVector.length; i++) {
-				norm += bugVector[i] * bugVector[i];
-			}
-			norm = Math.sqrt(norm);
-			for (int i = 0; i < bugVector.length; i++) {
-				bugVector[i] = bugVector[i] / (float) norm;
+		}
+		int totalTermCount = 0;
+		for (String word : wordTable.keySet()) {
+			Integer id = wordIdTable.get(word);
+			if (id != null) {
+				totalTermCount += wordTable.get(word);
 			}
-
-			float[] simValues = computeSimilarity(bugVector);
-
-			StringBuffer buf = new StringBuffer();
-			buf.append(bugId + ";");
-			for (int i = 0; i < simValues.length; i++) {
-				if (simValues[i] != 0.0f)
-					buf.append(i + ":" + simValues[i] + " ");
+		}
+		// the bug's terms by increasing id, packed with their weight bits
+		long[] terms = new long[wordTable.size()];
+		int termCount = 0;
+		for (String word : wordTable.keySet()) {
+			Integer id = wordIdTable.get(word);
+			if (id != null) {
+				Integer idc = idcTable.get(word);
+				Integer count = wordTable.get(word);
+				float tf = getTfValue(count, totalTermCount);
+				float idf = getIdfValue(idc, fileCount);
+				terms[termCount++] = (long) id << 32
+						| (Float.floatToIntBits(tf * idf) & 0xFFFFFFFFL);
 			}
-			writer.write(buf.toString().trim() + lineSparator);
-			writer.flush();
-			
 		}
-		writer.close();
+		Arrays.sort(terms, 0, termCount);
+		int[] termIds = new int[termCount];
+		float[] bugVector = new float[termCount];
+		double norm = 0.0f;
+		for (int i = 0; i < termCount; i++) {
+			termIds[i] = (int) (terms[i] >>> 32);
+			bugVector[i] = Float.intBitsToFloat((int) terms[i]);
+			norm += bugVector[i] * bugVector[i];
+		}
+		norm = Math.sqrt(norm);
+		for (int i = 0; i < termCount; i++) {
+			bugVector[i] = bugVector[i] / (float) norm;
+		}
+		return new SparseVector(termIds, bugVector);
 	}
 
-	private float[] computeSimilarity(float[] bugVector) throws IOException {
+	/**
+	 * @return the class id of every segment, from ClassName.txt and
+	 *         MethodName.txt
+	 */
+	private int[] getClasses() throws IOException {
 		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "CodeVector.txt"));
-		String line = null;
-		float[] simValues = new float[fileCount];
+				+ "ClassName.txt"));
+		String line;
+		Hashtable<String, Integer> classIdTable = new Hashtable<String, Integer>();
 		while ((line = reader.readLine()) != null) {
-			String[] values = line.split(";");
-			String name = values[0];
-			Integer fileId = fileIdTable.get(name);
-			if (fileId == null) {
-				System.out.println(name);
-			}
-			float[] codeVector = null;
-			if (values.length != 1)
-				codeVector = this.getVector(values[1]);
-			else
-				codeVector = this.getVector(null);
-			float sim = 0.0f;
-			for (int i = 0; i < codeVector.length; i++) {
-				sim += bugVector[i] * codeVector[i];
-			}
-			simValues[fileId] = sim;
+			String[] values = line.split("\t");
+			classIdTable.put(values[1].trim(), Integer.parseInt(values[0]));
 		}
-		return simValues;
-	}
+		reader.close();
 
-	private float[] getVector(String vecStr) {
-		float[] vector = new float[codeTermCount];
-		if (vecStr == null)
-			return vector;
-		String[] values = vecStr.split(" ");
-		for (String str : values) {
-			Integer id = Integer.parseInt(str.substring(0, str.indexOf(":")));
-			float w = Float.parseFloat(str.substring(str.indexOf(":") + 1));
-			vector[id] = w;
-		}
-		return vector;
+		int[] classes = new int[fileCount];
+		reader = new BufferedReader(new FileReader(workDir + "MethodName.txt"));
+		while ((line = reader.readLine()) != null) {
+			String[] values = line.split("\t");
+			String name = values[1].trim();
+			classes[Integer.parseInt(values[0])] = classIdTable.get(name
+					.substring(0, name.indexOf('@')));
+		}
+		reader.close();
+		return classes;
 	}
 
 	private float getTfValue(int freq, int totalTermCount) {
@@ -170,18 +254,4 @@ public class Similarity {
 		reader.close();
 		return idcTable;
 	}
-
-	private Hashtable<String, Integer> getFileId() throws IOException {
-		BufferedReader reader = new BufferedReader(new FileReader(workDir
-				+ "MethodName.txt"));
-		String line;
-		Hashtable<String, Integer> table = new Hashtable<String, Integer>();
-		while ((line = reader.readLine()) != null) {
-			String[] values = line.split("\t");
-			Integer idInteger = Integer.parseInt(values[0]);
-			String nameString = values[1].trim();
-			table.put(nameString, idInteger);
-		}
-		return table;
-	}
 }
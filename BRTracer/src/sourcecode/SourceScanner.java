@@ -0,0 +1,262 @@
+package sourcecode;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import property.Property;
+import sourcecode.ast.FileDetector;
+import sourcecode.ast.ParsedFile;
+import sourcecode.ast.SourceParser;
+import sourcecode.ast.SourceParserFactory;
+import utils.Analyzer;
+import utils.Stem;
+
+/**
+ * Parses every source file exactly once and writes ClassName.txt,
+ * ClassAndMethodCorpus.txt, CodeCorpus.txt, MethodName.txt,
+ * CodeCorpus_OriginClass.txt, Import.txt and LOC.txt, which used to take four
+ * separate passes. The files are byte-identical to the ones those passes
+ * wrote.
+ * <p>
+ * With more than one thread (see {@link Property#getThreadCount()}) files are
+ * parsed on a worker pool while this thread writes the results in detection
+ * order, so class and segment ids are the same as in a sequential run.
+ * <p>
+ * Unless {@link Property#isParseCache()} is off, the result for each file is
+ * kept in a {@link ParseCache} in the work dir and reused while the file
+ * content does not change.
+ */
+public class SourceScanner {
+	// the words of a class per segment in CodeCorpus.txt
+	public static int spiltclass = 800;
+
+	private String workDir = Property.getInstance().getWorkDir()
+			+ Property.getInstance().getSeparator();
+	private String lineSeparator = Property.getInstance().getLineSeparator();
+
+	private FileWriter classNameWriter;
+	private FileWriter classAndMethodWriter;
+	private FileWriter codeCorpusWriter;
+	private FileWriter methodNameWriter;
+	private FileWriter originCorpusWriter;
+	private FileWriter importWriter;
+	private FileWriter locWriter;
+
+	private ParseCache cache;
+
+	private static final ThreadLocal<Analyzer> ANALYZERS = new ThreadLocal<Analyzer>() {
+		@Override
+		protected Analyzer initialValue() {
+			return new Analyzer(Analyzer.SOURCE_CODE);
+		}
+	};
+
+	private TreeSet<String> nameSet = new TreeSet<String>();
+	private int classCount = 0;
+	private int segmentCount = 0;
+
+	public static void main(String[] args) throws Exception {
+		new SourceScanner().scan();
+	}
+
+	public void scan() throws Exception {
+		FileDetector detector = new FileDetector("java");
+		File[] files = detector.detect(Property.getInstance()
+				.getSourceCodeDir());
+
+		classNameWriter = new FileWriter(workDir + "ClassName.txt");
+		classAndMethodWriter = new FileWriter(workDir
+				+ "ClassAndMethodCorpus.txt");
+		codeCorpusWriter = new FileWriter(workDir + "CodeCorpus.txt");
+		methodNameWriter = new FileWriter(workDir + "MethodName.txt");
+		originCorpusWriter = new FileWriter(workDir
+				+ "CodeCorpus_OriginClass.txt");
+		importWriter = new FileWriter(workDir + "Import.txt");
+		locWriter = new FileWriter(workDir + "LOC.txt");
+
+		if (Property.getInstance().isParseCache()) {
+			cache = new ParseCache(new File(workDir + "ParseCache.dat"),
+					getCacheConfig());
+			cache.load();
+		}
+
+		int threadCount = Property.getInstance().getThreadCount();
+		if (threadCount > 1) {
+			parseInParallel(files, threadCount);
+		} else {
+			for (File file : files) {
+				write(parseOrLoad(file));
+			}
+		}
+		if (cache != null) {
+			cache.save();
+			System.out.println("parse cache: " + cache.getHits() + " hits, "
+					+ cache.getMisses() + " misses");
+		}
+		Property.getInstance().setOriginFileCount(classCount);
+		Property.getInstance().setFileCount(segmentCount);
+
+		classNameWriter.close();
+		classAndMethodWriter.close();
+		codeCorpusWriter.close();
+		methodNameWriter.close();
+		originCorpusWriter.close();
+		importWriter.close();
+		locWriter.close();
+	}
+
+	private void parseInParallel(File[] files, int threadCount)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+		// only a few files per thread are parsed ahead of the writer, which
+		// keeps memory flat on large trees
+		int window = threadCount * 4;
+		LinkedList<Future<ParsedFile>> pending = new LinkedList<Future<ParsedFile>>();
+		int next = 0;
+		try {
+			while (next < files.length || !pending.isEmpty()) {
+				while (next < files.length && pending.size() < window) {
+					final File file = files[next++];
+					pending.add(pool.submit(new Callable<ParsedFile>() {
+						public ParsedFile call() throws Exception {
+							return parseOrLoad(file);
+						}
+					}));
+				}
+				try {
+					write(pending.removeFirst().get());
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof Exception)
+						throw (Exception) ex.getCause();
+					throw ex;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// everything that changes what parse() returns for the same file
+	private String getCacheConfig() {
+		Property property = Property.getInstance();
+		return "project=" + property.getProject() + ";offset="
+				+ property.getOffset() + ";backend="
+				+ property.getParserBackend() + ";scanContent="
+				+ property.isScanContent() + ";analyzer="
+				+ Analyzer.getFingerprint(Analyzer.SOURCE_CODE);
+	}
+
+	private ParsedFile parseOrLoad(File file) throws IOException {
+		if (cache == null) {
+			return parse(file);
+		}
+		byte[] hash = cache.hash(file);
+		ParsedFile parsed = cache.get(file, hash);
+		if (parsed == null) {
+			parsed = parse(file);
+			cache.put(file, hash, parsed);
+		}
+		return parsed;
+	}
+
+	public ParsedFile parse(File file) {
+		SourceParser parser = SourceParserFactory.create(file);
+
+		String fileName = parser.getPackageName();
+		if (fileName.trim().equals("")) {
+			fileName = file.getName();
+		} else {
+			fileName += "." + file.getName();
+		}
+
+		/* modification for AspectJ */
+		if (Property.getInstance().getProject().compareTo("aspectj") == 0) {
+			fileName = file.getPath();
+			fileName = fileName.substring(Property.getInstance().getOffset());
+		}
+		/* ************************** */
+
+		ParsedFile parsed = new ParsedFile();
+		parsed.setFileName(fileName);
+		parsed.setJavaFileFullClassName(fileName.substring(0,
+				fileName.lastIndexOf(".")));
+		parsed.setLinesOfCode(parser.getLineCount());
+
+		// imports and the package name must be read before getContent()
+		// deletes their nodes from the tree
+		parsed.setImports(parser.getImports());
+
+		char[] code = parser.getContentText();
+		Analyzer analyzer = ANALYZERS.get();
+		analyzer.analyze(code, 0, code.length);
+		StringBuffer contentBuf = new StringBuffer();
+		analyzer.appendTerms(contentBuf);
+		parsed.setContent(contentBuf.toString());
+
+		String[] classNameAndMethodName = parser.getClassNameAndMethodName();
+		StringBuffer nameBuf = new StringBuffer();
+		for (String word : classNameAndMethodName) {
+			String stemWord = Stem.stem(word.toLowerCase());
+			nameBuf.append(stemWord);
+			nameBuf.append(" ");
+		}
+		parsed.setNames(nameBuf.toString());
+		return parsed;
+	}
+
+	private void write(ParsedFile parsed) throws IOException {
+		String className = parsed.getJavaFileFullClassName();
+		if (!className.endsWith(".java")) {
+			className += ".java";
+		}
+
+		importWriter.write(parsed.getFileName() + "\t" + parsed.getImports()
+				+ lineSeparator);
+		locWriter.write(className + "\t" + parsed.getLinesOfCode()
+				+ lineSeparator);
+
+		if (nameSet.contains(parsed.getJavaFileFullClassName())) {
+			return;
+		}
+		nameSet.add(parsed.getJavaFileFullClassName());
+
+		classNameWriter.write(classCount + "\t" + className + lineSeparator);
+		classAndMethodWriter.write(className + "\t" + parsed.getNames()
+				+ lineSeparator);
+		originCorpusWriter.write(className + "\t" + parsed.getContent() + " "
+				+ parsed.getNames() + lineSeparator);
+		classCount++;
+
+		// segments get the names as the old corpus pass read them back from
+		// ClassAndMethodCorpus.txt, where an empty name list was dropped by
+		// split("\t") and appended as "null"
+		String names = parsed.getNames().length() == 0 ? null : parsed
+				.getNames();
+		String[] src = (parsed.getContent() + parsed.getNames()).split(" ");
+		int methodCount = 0;
+		while (methodCount == 0 || methodCount * spiltclass < src.length) {
+			StringBuffer content = new StringBuffer();
+			for (int i = methodCount * spiltclass; i < src.length
+					&& i < (methodCount + 1) * spiltclass; i++) {
+				content.append(src[i] + " ");
+			}
+			content.append(names);
+
+			String segmentName = className + "@" + methodCount + ".java";
+			methodNameWriter.write((segmentCount + methodCount) + "\t"
+					+ segmentName + lineSeparator);
+			codeCorpusWriter.write(segmentName + "\t" + content.toString()
+					+ lineSeparator);
+			methodCount++;
+		}
+		segmentCount += methodCount;
+	}
+}
@@ -0,0 +1,232 @@
+package sourcecode;
+
+import utils.CsrMatrix;
+import utils.TopK;
+
+/**
+ * Finds the K best segments, or classes, of a query over the
+ * {@link CodePostings} without scoring most of the corpus, with MaxScore
+ * pruning: every term knows the highest weight in its postings, so its
+ * contribution to any score is bounded. The terms whose bounds together do
+ * not reach the K-th best score so far cannot bring a segment in on their
+ * own; only the postings of the other terms are walked, and the rest are
+ * looked up for a segment when its bound could still beat the K-th score.
+ * <p>
+ * A segment that is scored gets the same float as from
+ * {@link CodePostings#score(int[], float[], int)}, and a segment is only
+ * skipped when its bound, widened by the most that float rounding can add,
+ * is not above the K-th score. Segments are visited by increasing id and
+ * {@link TopK} keeps the smaller id of a tie, so the result is exactly the
+ * top K of exhaustive scoring.
+ * <p>
+ * With a class per segment, a class scores the maximum of its segments, as
+ * in the evaluation. The segments of a class have to be numbered one after
+ * the other, as {@link SourceScanner} does.
+ */
+public class TopKSearcher {
+	private final CsrMatrix postings;
+	private final float[] maxImpacts;
+	private final int[] classes;
+
+	private long scoredCount = 0;
+	private long visitedCount = 0;
+
+	public TopKSearcher(CsrMatrix postings) {
+		this(postings, null);
+	}
+
+	/**
+	 * @param classes
+	 *            the class of every segment, not decreasing, or null to find
+	 *            segments
+	 */
+	public TopKSearcher(CsrMatrix postings, int[] classes) {
+		this.postings = postings;
+		this.classes = classes;
+		if (classes != null) {
+			for (int i = 1; i < classes.length; i++) {
+				if (classes[i] < classes[i - 1]) {
+					throw new IllegalArgumentException("segment " + i
+							+ " is not next to the other segments of its class");
+				}
+			}
+		}
+		int[] rowPointers = postings.getRowPointers();
+		float[] values = postings.getValues();
+		maxImpacts = new float[postings.getRowCount()];
+		for (int t = 0; t < maxImpacts.length; t++) {
+			for (int p = rowPointers[t]; p < rowPointers[t + 1]; p++) {
+				maxImpacts[t] = Math.max(maxImpacts[t], values[p]);
+			}
+		}
+	}
+
+	/**
+	 * Searches a query whose term ids are increasing and puts the best
+	 * segments or classes with a score above 0 into the arrays, best first
+	 * and by id on a tie.
+	 *
+	 * @return the number found, at most k
+	 */
+	public int search(int[] termIds, float[] weights, int count, int k,
+			int[] idOut, float[] scoreOut) {
+		int[] rowPointers = postings.getRowPointers();
+		int[] segments = postings.getColumns();
+		float[] values = postings.getValues();
+		TopK top = new TopK(k);
+
+		// the most a float sum of count products can be above the exact one
+		double slack = 1 + (count + 1) * 1.2e-7;
+		double[] bounds = new double[count];
+		int[] order = new int[count];
+		int[] positions = new int[count];
+		for (int i = 0; i < count; i++) {
+			bounds[i] = (double) weights[i] * maxImpacts[termIds[i]] * slack;
+			order[i] = i;
+			positions[i] = rowPointers[termIds[i]];
+		}
+		// terms by increasing bound; prefixBounds[j] sums the first j
+		for (int i = 1; i < count; i++) {
+			int term = order[i];
+			int j = i;
+			for (; j > 0 && bounds[order[j - 1]] > bounds[term]; j--) {
+				order[j] = order[j - 1];
+			}
+			order[j] = term;
+		}
+		double[] prefixBounds = new double[count + 1];
+		for (int j = 0; j < count; j++) {
+			prefixBounds[j + 1] = prefixBounds[j] + bounds[order[j]];
+		}
+
+		float[] contributions = new float[count];
+		boolean[] found = new boolean[count];
+		// terms order[0] to order[essential - 1] cannot bring a segment in
+		int essential = 0;
+		int currentClass = -1;
+		float classBest = 0;
+		while (true) {
+			double threshold = top.isFull() ? top.minScore() : -1;
+			while (essential < count
+					&& prefixBounds[essential + 1] <= threshold) {
+				essential++;
+			}
+
+			int segment = Integer.MAX_VALUE;
+			for (int j = essential; j < count; j++) {
+				int i = order[j];
+				if (positions[i] < rowPointers[termIds[i] + 1]) {
+					segment = Math.min(segment, segments[positions[i]]);
+				}
+			}
+			if (segment == Integer.MAX_VALUE) {
+				break;
+			}
+			visitedCount++;
+
+			if (classes != null && classes[segment] != currentClass) {
+				if (classBest > 0) {
+					top.offer(currentClass, classBest);
+				}
+				currentClass = classes[segment];
+				classBest = 0;
+				threshold = top.isFull() ? top.minScore() : -1;
+			}
+			if (classes != null) {
+				threshold = Math.max(threshold, classBest);
+			}
+
+			double bound = prefixBounds[essential];
+			for (int j = essential; j < count; j++) {
+				int i = order[j];
+				found[i] = positions[i] < rowPointers[termIds[i] + 1]
+						&& segments[positions[i]] == segment;
+				if (found[i]) {
+					contributions[i] = weights[i] * values[positions[i]++];
+					bound += contributions[i] * slack;
+				}
+			}
+			for (int j = essential - 1; j >= 0 && bound > threshold; j--) {
+				int i = order[j];
+				positions[i] = seek(segments, positions[i],
+						rowPointers[termIds[i] + 1], segment);
+				found[i] = positions[i] < rowPointers[termIds[i] + 1]
+						&& segments[positions[i]] == segment;
+				bound -= bounds[i];
+				if (found[i]) {
+					contributions[i] = weights[i] * values[positions[i]];
+					bound += contributions[i] * slack;
+				}
+			}
+			if (bound <= threshold) {
+				continue;
+			}
+
+			// in term order, like the exhaustive scorer
+			float score = 0.0f;
+			for (int i = 0; i < count; i++) {
+				if (found[i]) {
+					score += contributions[i];
+				}
+			}
+			scoredCount++;
+			if (classes == null) {
+				if (score != 0.0f) {
+					top.offer(segment, score);
+				}
+			} else if (score > classBest) {
+				classBest = score;
+			}
+		}
+		if (classBest > 0) {
+			top.offer(currentClass, classBest);
+		}
+		return sort(top, idOut, scoreOut);
+	}
+
+	// the first position from start on whose segment is not below the given
+	private static int seek(int[] segments, int start, int end, int segment) {
+		int low = start;
+		int high = end;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments[middle] < segment) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int sort(TopK top, int[] idOut, float[] scoreOut) {
+		int size = top.toArrays(idOut, scoreOut);
+		for (int i = 1; i < size; i++) {
+			int id = idOut[i];
+			float score = scoreOut[i];
+			int j = i;
+			for (; j > 0 && scoreOut[j - 1] < score; j--) {
+				idOut[j] = idOut[j - 1];
+				scoreOut[j] = scoreOut[j - 1];
+			}
+			idOut[j] = id;
+			scoreOut[j] = score;
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of segments scored in full, over all searches
+	 */
+	public long getScoredCount() {
+		return scoredCount;
+	}
+
+	/**
+	 * @return the number of segments met in the walked postings, over all
+	 *         searches
+	 */
+	public long getVisitedCount() {
+		return visitedCount;
+	}
+}
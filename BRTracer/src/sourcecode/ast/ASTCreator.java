@@ -11,6 +11,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 public class ASTCreator {
 
 	private String content = null;
+	private int lineCount = 0;
 
 	public void getFileContent(File file) {
 		this.getFileContent(file.getAbsolutePath());
@@ -23,13 +24,24 @@ public class ASTCreator {
 			String line = null;
 			BufferedReader reader = new BufferedReader(new FileReader(
 					absoluteFilePath));
-			while ((line = reader.readLine()) != null)
+			while ((line = reader.readLine()) != null) {
 				contentBuffer.append(line+"\r\n");
+				lineCount++;
+			}
+			reader.close();
 			content = contentBuffer.toString();
 		} catch (Exception ex) {
 			ex.printStackTrace();
 		}
 	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	public char[] getSource() {
+		return content.toCharArray();
+	}
 	
 	//ȡļӦCompilationUnit
 	public CompilationUnit getCompilationUnit() {
@@ -38,4 +50,13 @@ public class ASTCreator {
 		CompilationUnit cu = (CompilationUnit) parser.createAST(null);
 		return cu;
 	}
+
+	// method bodies are left empty, for callers that only need declarations
+	public CompilationUnit getDeclarations() {
+		ASTParser parser = ASTParser.newParser(AST.JLS3);
+		parser.setSource(content.toCharArray());
+		parser.setFocalPosition(0);
+		CompilationUnit cu = (CompilationUnit) parser.createAST(null);
+		return cu;
+	}
 }
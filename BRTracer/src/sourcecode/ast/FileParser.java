@@ -29,9 +29,11 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
 import utils.Splitter;
 
-public class FileParser {
+public class FileParser implements SourceParser {
 
 	private CompilationUnit cu = null;
+	private int lineCount = 0;
+	private char[] source = null;
 
 	/**
 	 * ���ָ����java�ļ���ʼ��CompilationUnit
@@ -40,9 +42,28 @@ public class FileParser {
 	 *            
 	 */
 	public FileParser(File file) {
+		this(file, false);
+	}
+
+	/**
+	 * @param scanContent
+	 *            read the content words with a {@link TokenScanner} and only
+	 *            parse the declarations, which is several times faster
+	 */
+	public FileParser(File file, boolean scanContent) {
 		ASTCreator creator = new ASTCreator();
 		creator.getFileContent(file);
-		cu = creator.getCompilationUnit();
+		if (scanContent) {
+			cu = creator.getDeclarations();
+			source = creator.getSource();
+		} else {
+			cu = creator.getCompilationUnit();
+		}
+		lineCount = creator.getLineCount();
+	}
+
+	public int getLineCount() {
+		return lineCount;
 	}
 
 	/**
@@ -69,14 +90,15 @@ public class FileParser {
 	 * @return ����ı��ĵ�������
 	 */
 	public String[] getContent() {
-		String[] tokensInSourceCode = Splitter.splitSourceCode(this
-				.deleteNoNeededNode());
-		StringBuffer sourceCodeContentBuffer = new StringBuffer();
-		for (String token : tokensInSourceCode) {
-			sourceCodeContentBuffer.append(token + " ");
+		char[] code = getContentText();
+		return Splitter.splitSourceCodeLowerCase(code, 0, code.length);
+	}
+
+	public char[] getContentText() {
+		if (source != null) {
+			return new TokenScanner(source).getContentText();
 		}
-		String content = sourceCodeContentBuffer.toString().toLowerCase();
-		return content.split(" ");
+		return this.deleteNoNeededNode().toCharArray();
 	}
 
 	public String[] getClassNameAndMethodName() {
@@ -104,6 +126,11 @@ public class FileParser {
 	private String getAllMethodName() {
 		ArrayList<String> methodNameList = new ArrayList<String>();
 		for (int i = 0; i < cu.types().size(); i++) {
+			// annotation types are still in the tree when the content was
+			// scanned
+			if (!(cu.types().get(i) instanceof TypeDeclaration)) {
+				continue;
+			}
 			TypeDeclaration type = (TypeDeclaration) cu.types().get(i);
 			MethodDeclaration[] methodDecls = type.getMethods();
 			for (MethodDeclaration methodDecl : methodDecls) {
@@ -128,6 +155,9 @@ public class FileParser {
 	private String getAllClassName() {
 		ArrayList<String> classNameList = new ArrayList<String>();
 		for (int i = 0; i < cu.types().size(); i++) {
+			if (!(cu.types().get(i) instanceof TypeDeclaration)) {
+				continue;
+			}
 			TypeDeclaration type = (TypeDeclaration) cu.types().get(i);
 			String name = type.getName().getFullyQualifiedName();
 			classNameList.add(name);
@@ -169,6 +199,18 @@ public class FileParser {
 		return cu.toString();
 	}
 
+	public String getImports() {
+		final StringBuffer imports = new StringBuffer();
+		cu.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(ImportDeclaration node) {
+				imports.append(node.getName() + " ");
+				return super.visit(node);
+			}
+		});
+		return imports.toString();
+	}
+
 	public void getImport(final FileWriter writeImport){
 		cu.accept(new ASTVisitor() {
 			@Override
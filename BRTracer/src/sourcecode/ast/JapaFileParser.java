@@ -0,0 +1,125 @@
+package sourcecode.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+
+import japa.parser.JavaParser;
+import japa.parser.ParseException;
+import japa.parser.TokenMgrError;
+import japa.parser.ast.CompilationUnit;
+import japa.parser.ast.ImportDeclaration;
+import japa.parser.ast.body.AnnotationDeclaration;
+import japa.parser.ast.body.BodyDeclaration;
+import japa.parser.ast.body.ClassOrInterfaceDeclaration;
+import japa.parser.ast.body.ConstructorDeclaration;
+import japa.parser.ast.body.MethodDeclaration;
+import japa.parser.ast.body.TypeDeclaration;
+
+import utils.Splitter;
+
+/**
+ * {@link SourceParser} on the JavaCC parser in {@code japa.parser}. It only
+ * knows Java 5, so a file it cannot parse gives no words at all, where JDT
+ * still recovers a partial tree.
+ */
+public class JapaFileParser implements SourceParser {
+
+	static {
+		// JavaParser shares one parser between all callers by default, which
+		// breaks when files are parsed on several threads
+		JavaParser.setCacheParser(false);
+	}
+
+	private CompilationUnit cu = null;
+	private int lineCount = 0;
+
+	public JapaFileParser(File file) {
+		ASTCreator creator = new ASTCreator();
+		creator.getFileContent(file);
+		lineCount = creator.getLineCount();
+		try {
+			byte[] bytes = new String(creator.getSource()).getBytes("UTF-8");
+			cu = JavaParser.parse(new ByteArrayInputStream(bytes), "UTF-8");
+		} catch (UnsupportedEncodingException ex) {
+			ex.printStackTrace();
+		} catch (ParseException ex) {
+			cu = null;
+		} catch (TokenMgrError ex) {
+			cu = null;
+		}
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	public String getPackageName() {
+		if (cu == null || cu.getPackage() == null) {
+			return "";
+		}
+		return cu.getPackage().getName().toString();
+	}
+
+	public String getImports() {
+		StringBuffer imports = new StringBuffer();
+		if (cu != null && cu.getImports() != null) {
+			for (ImportDeclaration node : cu.getImports()) {
+				imports.append(node.getName() + " ");
+			}
+		}
+		return imports.toString();
+	}
+
+	public String[] getContent() {
+		char[] code = getContentText();
+		return Splitter.splitSourceCodeLowerCase(code, 0, code.length);
+	}
+
+	public char[] getContentText() {
+		if (cu == null) {
+			return new char[0];
+		}
+		cu.setPackage(null);
+		cu.setImports(null);
+		if (cu.getTypes() != null) {
+			for (Iterator<TypeDeclaration> i = cu.getTypes().iterator(); i
+					.hasNext();) {
+				if (i.next() instanceof AnnotationDeclaration) {
+					i.remove();
+				}
+			}
+		}
+		return cu.toString().toCharArray();
+	}
+
+	public String[] getClassNameAndMethodName() {
+		StringBuffer classNames = new StringBuffer();
+		StringBuffer methodNames = new StringBuffer();
+		if (cu != null && cu.getTypes() != null) {
+			for (TypeDeclaration type : cu.getTypes()) {
+				if (!(type instanceof ClassOrInterfaceDeclaration)) {
+					continue;
+				}
+				classNames.append(type.getName() + " ");
+				if (type.getMembers() == null) {
+					continue;
+				}
+				// JDT counts constructors as methods too
+				for (BodyDeclaration member : type.getMembers()) {
+					if (member instanceof MethodDeclaration) {
+						methodNames.append(((MethodDeclaration) member)
+								.getName() + " ");
+					} else if (member instanceof ConstructorDeclaration) {
+						methodNames.append(((ConstructorDeclaration) member)
+								.getName() + " ");
+					}
+				}
+			}
+		}
+		String content = (classNames.toString().trim() + " " + methodNames
+				.toString().trim()).toLowerCase();
+		return content.split(" ");
+	}
+}
@@ -0,0 +1,208 @@
+package sourcecode.ast;
+
+import java.io.File;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+/**
+ * {@link SourceParser} that never builds a tree. The content comes from a
+ * {@link TokenScanner}; package, imports and names are read off the same
+ * token stream with a few rules:
+ * <ul>
+ * <li>a class name is the identifier after {@code class} or
+ * {@code interface} at the top level,</li>
+ * <li>a method name is an identifier followed by {@code (} directly in the
+ * body of a top-level class, when the token before it can end a return type
+ * or a modifier list.</li>
+ * </ul>
+ */
+public class LexerFileParser implements SourceParser {
+
+	private final char[] source;
+	private int lineCount = 0;
+
+	private String packageName = "";
+	private StringBuffer imports = new StringBuffer();
+	private StringBuffer classNames = new StringBuffer();
+	private StringBuffer methodNames = new StringBuffer();
+
+	public LexerFileParser(File file) {
+		ASTCreator creator = new ASTCreator();
+		creator.getFileContent(file);
+		lineCount = creator.getLineCount();
+		source = creator.getSource();
+		scanDeclarations();
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public String getImports() {
+		return imports.toString();
+	}
+
+	public String[] getContent() {
+		return new TokenScanner(source).getContent();
+	}
+
+	public char[] getContentText() {
+		return new TokenScanner(source).getContentText();
+	}
+
+	public String[] getClassNameAndMethodName() {
+		String content = (classNames.toString().trim() + " " + methodNames
+				.toString().trim()).toLowerCase();
+		return content.split(" ");
+	}
+
+	private void scanDeclarations() {
+		IScanner scanner = ToolFactory.createScanner(false, false, false,
+				false);
+		scanner.setSource(source);
+
+		int depth = 0;
+		// true while inside the body of a top-level class or interface
+		boolean classBody = false;
+		boolean typeKeyword = false;
+		boolean annotationType = false;
+		StringBuffer declaration = null;
+		boolean importDeclaration = false;
+		int lastToken = ITerminalSymbols.TokenNameEOF;
+		int beforeLast = ITerminalSymbols.TokenNameEOF;
+		int identifierStart = -1;
+		int identifierEnd = -1;
+		while (true) {
+			int token;
+			int position = scanner.getCurrentTokenEndPosition();
+			try {
+				token = scanner.getNextToken();
+			} catch (InvalidInputException ex) {
+				if (scanner.getCurrentTokenEndPosition() <= position)
+					break;
+				continue;
+			}
+			if (token == ITerminalSymbols.TokenNameEOF)
+				break;
+
+			if (declaration != null) {
+				// package or import name
+				if (token == ITerminalSymbols.TokenNameSEMICOLON) {
+					String name = declaration.toString();
+					if (name.endsWith(".*"))
+						name = name.substring(0, name.length() - 2);
+					if (importDeclaration)
+						imports.append(name + " ");
+					else
+						packageName = name;
+					declaration = null;
+				} else if (token != ITerminalSymbols.TokenNamestatic) {
+					declaration.append(scanner.getCurrentTokenSource());
+				}
+				continue;
+			}
+
+			switch (token) {
+			case ITerminalSymbols.TokenNamepackage:
+			case ITerminalSymbols.TokenNameimport:
+				if (depth == 0) {
+					declaration = new StringBuffer();
+					importDeclaration = token == ITerminalSymbols.TokenNameimport;
+				}
+				break;
+			case ITerminalSymbols.TokenNameclass:
+			case ITerminalSymbols.TokenNameinterface:
+				if (depth == 0 && lastToken != ITerminalSymbols.TokenNameDOT) {
+					typeKeyword = true;
+					annotationType = lastToken == ITerminalSymbols.TokenNameAT;
+				}
+				break;
+			case ITerminalSymbols.TokenNameIdentifier:
+				if (typeKeyword && depth == 0
+						&& (lastToken == ITerminalSymbols.TokenNameclass
+						|| lastToken == ITerminalSymbols.TokenNameinterface)
+						&& !annotationType) {
+					classNames.append(scanner.getCurrentTokenSource());
+					classNames.append(' ');
+				}
+				identifierStart = scanner.getCurrentTokenStartPosition();
+				identifierEnd = scanner.getCurrentTokenEndPosition();
+				break;
+			case ITerminalSymbols.TokenNameLPAREN:
+				if (classBody && depth == 1
+						&& lastToken == ITerminalSymbols.TokenNameIdentifier
+						&& startsMember(beforeLast)) {
+					methodNames.append(source, identifierStart, identifierEnd
+							- identifierStart + 1);
+					methodNames.append(' ');
+				}
+				break;
+			case ITerminalSymbols.TokenNameLBRACE:
+				if (depth == 0) {
+					classBody = typeKeyword && !annotationType;
+					typeKeyword = false;
+				}
+				depth++;
+				break;
+			case ITerminalSymbols.TokenNameRBRACE:
+				if (depth > 0)
+					depth--;
+				if (depth == 0)
+					classBody = false;
+				break;
+			case ITerminalSymbols.TokenNameSEMICOLON:
+				if (depth == 0)
+					typeKeyword = false;
+				break;
+			}
+			beforeLast = lastToken;
+			lastToken = token;
+		}
+	}
+
+	/**
+	 * The identifier before a {@code (} names a method or constructor when the
+	 * token in front of it ends a type, a modifier list or the previous member;
+	 * anything else is a call in a field initializer or an annotation.
+	 */
+	private boolean startsMember(int tokenBeforeName) {
+		switch (tokenBeforeName) {
+		case ITerminalSymbols.TokenNameIdentifier:
+		case ITerminalSymbols.TokenNameGREATER:
+		case ITerminalSymbols.TokenNameRIGHT_SHIFT:
+		case ITerminalSymbols.TokenNameUNSIGNED_RIGHT_SHIFT:
+		case ITerminalSymbols.TokenNameRBRACKET:
+		case ITerminalSymbols.TokenNameLBRACE:
+		case ITerminalSymbols.TokenNameRBRACE:
+		case ITerminalSymbols.TokenNameSEMICOLON:
+		case ITerminalSymbols.TokenNamevoid:
+		case ITerminalSymbols.TokenNameboolean:
+		case ITerminalSymbols.TokenNamebyte:
+		case ITerminalSymbols.TokenNamechar:
+		case ITerminalSymbols.TokenNameshort:
+		case ITerminalSymbols.TokenNameint:
+		case ITerminalSymbols.TokenNamelong:
+		case ITerminalSymbols.TokenNamefloat:
+		case ITerminalSymbols.TokenNamedouble:
+		case ITerminalSymbols.TokenNamepublic:
+		case ITerminalSymbols.TokenNameprotected:
+		case ITerminalSymbols.TokenNameprivate:
+		case ITerminalSymbols.TokenNamestatic:
+		case ITerminalSymbols.TokenNamefinal:
+		case ITerminalSymbols.TokenNameabstract:
+		case ITerminalSymbols.TokenNamenative:
+		case ITerminalSymbols.TokenNamesynchronized:
+		case ITerminalSymbols.TokenNamestrictfp:
+			return true;
+		default:
+			return false;
+		}
+	}
+}
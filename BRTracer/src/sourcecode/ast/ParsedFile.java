@@ -0,0 +1,73 @@
+package sourcecode.ast;
+
+/**
+ * Everything the corpus stages need from one source file, extracted by a
+ * single parse: the stemmed content and class/method names, the raw imports
+ * and the line count.
+ */
+public class ParsedFile {
+	private String fileName;
+	private String javaFileFullClassName;
+	private String content;
+	private String names;
+	private String imports;
+	private int linesOfCode;
+
+	/**
+	 * @return the file name with its extension, as written to Import.txt
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public String getJavaFileFullClassName() {
+		return javaFileFullClassName;
+	}
+
+	public void setJavaFileFullClassName(String javaFileFullClassName) {
+		this.javaFileFullClassName = javaFileFullClassName;
+	}
+
+	/**
+	 * @return stemmed source tokens without keywords and stopwords, each
+	 *         followed by a space
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	/**
+	 * @return stemmed class and method names, each followed by a space
+	 */
+	public String getNames() {
+		return names;
+	}
+
+	public void setNames(String names) {
+		this.names = names;
+	}
+
+	public String getImports() {
+		return imports;
+	}
+
+	public void setImports(String imports) {
+		this.imports = imports;
+	}
+
+	public int getLinesOfCode() {
+		return linesOfCode;
+	}
+
+	public void setLinesOfCode(int linesOfCode) {
+		this.linesOfCode = linesOfCode;
+	}
+}
@@ -0,0 +1,129 @@
+package sourcecode.ast;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the {@link SourceParser} backends on one or more source trees.
+ * For every backend it prints the files parsed per second and how far its
+ * output agrees with the JDT tree printer, which the rest of the pipeline
+ * was tuned on.
+ * <p>
+ * Usage: {@code ParserBenchmark <sourceDir>...}, for example
+ * {@code Dataset/swt/src Dataset/aspectj/src}.
+ */
+public class ParserBenchmark {
+	private static final String[] BACKENDS = { "jdt", "jdt-scan", "japa",
+			"lexer" };
+
+	private static class Result {
+		String packageName;
+		String imports;
+		String[] content;
+		String[] names;
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("usage: ParserBenchmark <sourceDir>...");
+			return;
+		}
+		for (String dir : args) {
+			File[] files = new FileDetector("java").detect(dir);
+			System.out.println(dir + ": " + files.length + " files");
+			Result[] reference = null;
+			for (String backend : BACKENDS) {
+				long start = System.currentTimeMillis();
+				Result[] results = new Result[files.length];
+				for (int i = 0; i < files.length; i++) {
+					results[i] = parse(backend, files[i]);
+				}
+				long time = Math.max(1, System.currentTimeMillis() - start);
+				if (reference == null) {
+					reference = results;
+				}
+				report(backend, files.length, time, reference, results);
+			}
+		}
+	}
+
+	private static SourceParser open(String backend, File file) {
+		if (backend.equals("jdt")) {
+			return new FileParser(file, false);
+		} else if (backend.equals("jdt-scan")) {
+			return new FileParser(file, true);
+		} else if (backend.equals(SourceParserFactory.JAPA)) {
+			return new JapaFileParser(file);
+		}
+		return new LexerFileParser(file);
+	}
+
+	private static Result parse(String backend, File file) {
+		SourceParser parser = open(backend, file);
+		Result result = new Result();
+		result.packageName = parser.getPackageName();
+		result.imports = parser.getImports();
+		result.content = parser.getContent();
+		result.names = parser.getClassNameAndMethodName();
+		return result;
+	}
+
+	private static void report(String backend, int fileCount, long time,
+			Result[] reference, Result[] results) {
+		int samePackage = 0;
+		int sameImports = 0;
+		int sameContent = 0;
+		int sameNames = 0;
+		long referenceTokens = 0;
+		long tokens = 0;
+		long sharedTokens = 0;
+		for (int i = 0; i < results.length; i++) {
+			Result expected = reference[i];
+			Result actual = results[i];
+			if (expected.packageName.equals(actual.packageName))
+				samePackage++;
+			if (expected.imports.equals(actual.imports))
+				sameImports++;
+			if (Arrays.equals(expected.content, actual.content))
+				sameContent++;
+			if (Arrays.equals(expected.names, actual.names))
+				sameNames++;
+			referenceTokens += expected.content.length;
+			tokens += actual.content.length;
+			sharedTokens += shared(expected.content, actual.content);
+		}
+		System.out.println(String.format(
+				"  %-8s %8.1f files/s  content %5.1f%% of files, "
+						+ "recall %5.1f%%, precision %5.1f%%  names %5.1f%%  "
+						+ "imports %5.1f%%  package %5.1f%%", backend,
+				fileCount * 1000.0 / time, percent(sameContent, fileCount),
+				percent(sharedTokens, referenceTokens),
+				percent(sharedTokens, tokens), percent(sameNames, fileCount),
+				percent(sameImports, fileCount),
+				percent(samePackage, fileCount)));
+	}
+
+	// size of the multiset intersection of the two token lists
+	private static int shared(String[] expected, String[] actual) {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (String token : expected) {
+			Integer count = counts.get(token);
+			counts.put(token, count == null ? 1 : count + 1);
+		}
+		int shared = 0;
+		for (String token : actual) {
+			Integer count = counts.get(token);
+			if (count != null && count > 0) {
+				counts.put(token, count - 1);
+				shared++;
+			}
+		}
+		return shared;
+	}
+
+	private static double percent(long part, long whole) {
+		return whole == 0 ? 100.0 : part * 100.0 / whole;
+	}
+}
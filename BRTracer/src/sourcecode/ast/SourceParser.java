@@ -0,0 +1,36 @@
+package sourcecode.ast;
+
+/**
+ * What the corpus stages read from one java file. Implementations may prune
+ * their tree while extracting the content, so the package name and imports
+ * must be read before {@link #getContent()}.
+ */
+public interface SourceParser {
+
+	public String getPackageName();
+
+	/**
+	 * @return the lower-case words of the code and javadoc, without package
+	 *         and import declarations
+	 */
+	public String[] getContent();
+
+	/**
+	 * @return the text {@link #getContent()} splits into words, for callers
+	 *         that split it themselves
+	 */
+	public char[] getContentText();
+
+	/**
+	 * @return the lower-case names of the top-level classes followed by the
+	 *         names of their methods
+	 */
+	public String[] getClassNameAndMethodName();
+
+	/**
+	 * @return the imported names, each followed by a space
+	 */
+	public String getImports();
+
+	public int getLineCount();
+}
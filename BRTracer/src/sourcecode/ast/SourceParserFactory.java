@@ -0,0 +1,32 @@
+package sourcecode.ast;
+
+import java.io.File;
+
+import property.Property;
+
+/**
+ * Creates the {@link SourceParser} selected by
+ * {@link Property#getParserBackend()}.
+ */
+public class SourceParserFactory {
+	public static final String JDT = "jdt";
+	public static final String JAPA = "japa";
+	public static final String LEXER = "lexer";
+
+	public static SourceParser create(File file) {
+		return create(file, Property.getInstance().getParserBackend());
+	}
+
+	public static SourceParser create(File file, String backend) {
+		if (JDT.equals(backend)) {
+			return new FileParser(file, Property.getInstance()
+					.isScanContent());
+		} else if (JAPA.equals(backend)) {
+			return new JapaFileParser(file);
+		} else if (LEXER.equals(backend)) {
+			return new LexerFileParser(file);
+		}
+		throw new IllegalArgumentException("unknown parser backend: "
+				+ backend);
+	}
+}
@@ -0,0 +1,246 @@
+package sourcecode.ast;
+
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+import utils.Splitter;
+
+/**
+ * Extracts the content words of a java file with the JDT scanner instead of
+ * building a CompilationUnit and printing it back. Package and import
+ * declarations, top-level annotation type declarations and comments that
+ * the DOM does not keep (line and block comments, and javadoc inside method
+ * bodies) are skipped, so the words match {@link FileParser#getContent()}.
+ */
+public class TokenScanner {
+
+	private final char[] source;
+	private final StringBuffer text = new StringBuffer();
+
+	// tokens seen at the top level since the last declaration ended; they
+	// are held back until we know whether the declaration is kept
+	private final StringBuffer pending = new StringBuffer();
+
+	// modifiers after a javadoc in a method body, held until we know
+	// whether they start a local class
+	private final StringBuffer modifiers = new StringBuffer();
+
+	public TokenScanner(char[] source) {
+		this.source = source;
+	}
+
+	public String[] getContent() {
+		char[] code = getContentText();
+		return Splitter.splitSourceCodeLowerCase(code, 0, code.length);
+	}
+
+	/**
+	 * @return the kept tokens separated by spaces, before they are split into
+	 *         words
+	 */
+	public char[] getContentText() {
+		scan();
+		char[] code = new char[text.length()];
+		text.getChars(0, code.length, code, 0);
+		return code;
+	}
+
+	private void scan() {
+		IScanner scanner = ToolFactory.createScanner(true, false, false, false);
+		scanner.setSource(source);
+
+		// one entry per open brace, true when it opens a class body; javadoc
+		// is only attached to the DOM for declarations in a class body
+		boolean[] typeBody = new boolean[16];
+		int depth = 0;
+		boolean typeKeyword = false;
+		int parenDepth = 0;
+		int[] newParenDepth = new int[16];
+		int newCount = 0;
+		boolean afterNew = false;
+		boolean anonymousBody = false;
+		int lastToken = ITerminalSymbols.TokenNameEOF;
+
+		int javadocStart = -1;
+		int javadocEnd = -1;
+		boolean localJavadoc = false;
+
+		boolean skipDeclaration = false;
+		int skipBodyDepth = -1;
+		while (true) {
+			int token;
+			int position = scanner.getCurrentTokenEndPosition();
+			try {
+				token = scanner.getNextToken();
+			} catch (InvalidInputException ex) {
+				if (scanner.getCurrentTokenEndPosition() <= position)
+					break;
+				continue;
+			}
+			if (token == ITerminalSymbols.TokenNameEOF)
+				break;
+			if (token == ITerminalSymbols.TokenNameCOMMENT_LINE
+					|| token == ITerminalSymbols.TokenNameCOMMENT_BLOCK)
+				continue;
+
+			if (skipBodyDepth >= 0) {
+				// inside a top-level annotation type declaration
+				if (token == ITerminalSymbols.TokenNameLBRACE) {
+					skipBodyDepth++;
+				} else if (token == ITerminalSymbols.TokenNameRBRACE) {
+					skipBodyDepth--;
+					if (skipBodyDepth == 0)
+						skipBodyDepth = -1;
+				}
+				continue;
+			}
+			if (skipDeclaration) {
+				// package or import declaration
+				if (token == ITerminalSymbols.TokenNameSEMICOLON)
+					skipDeclaration = false;
+				continue;
+			}
+
+			if (depth == 0) {
+				if (token == ITerminalSymbols.TokenNamepackage
+						|| token == ITerminalSymbols.TokenNameimport) {
+					pending.setLength(0);
+					javadocStart = -1;
+					skipDeclaration = true;
+					continue;
+				}
+				if (lastToken == ITerminalSymbols.TokenNameAT
+						&& token == ITerminalSymbols.TokenNameinterface) {
+					pending.setLength(0);
+					javadocStart = -1;
+					skipBodyDepth = 0;
+					lastToken = token;
+					continue;
+				}
+			}
+			if (token == ITerminalSymbols.TokenNameCOMMENT_JAVADOC) {
+				// only the javadoc right before a declaration is attached to
+				// the DOM; in a method body that means a local class
+				text.append(modifiers);
+				modifiers.setLength(0);
+				javadocStart = scanner.getCurrentTokenStartPosition();
+				javadocEnd = scanner.getCurrentTokenEndPosition();
+				localJavadoc = depth > 0 && !typeBody[depth - 1];
+				continue;
+			}
+
+			switch (token) {
+			case ITerminalSymbols.TokenNameclass:
+			case ITerminalSymbols.TokenNameinterface:
+				if (lastToken != ITerminalSymbols.TokenNameDOT)
+					typeKeyword = true;
+				break;
+			case ITerminalSymbols.TokenNamenew:
+				afterNew = true;
+				break;
+			case ITerminalSymbols.TokenNameLPAREN:
+				if (afterNew) {
+					// arguments of a class instance creation, which may be
+					// followed by an anonymous class body
+					if (newCount == newParenDepth.length)
+						newParenDepth = grow(newParenDepth);
+					newParenDepth[newCount++] = parenDepth;
+					afterNew = false;
+				}
+				parenDepth++;
+				break;
+			case ITerminalSymbols.TokenNameLBRACKET:
+				afterNew = false;
+				break;
+			case ITerminalSymbols.TokenNameRPAREN:
+				parenDepth--;
+				if (newCount > 0 && newParenDepth[newCount - 1] == parenDepth) {
+					newCount--;
+					anonymousBody = true;
+				}
+				break;
+			case ITerminalSymbols.TokenNameSEMICOLON:
+				typeKeyword = false;
+				afterNew = false;
+				break;
+			case ITerminalSymbols.TokenNameLBRACE:
+				afterNew = false;
+				if (depth == typeBody.length) {
+					boolean[] larger = new boolean[depth * 2];
+					System.arraycopy(typeBody, 0, larger, 0, depth);
+					typeBody = larger;
+				}
+				typeBody[depth++] = typeKeyword
+						|| (anonymousBody && lastToken == ITerminalSymbols.TokenNameRPAREN);
+				typeKeyword = false;
+				break;
+			case ITerminalSymbols.TokenNameRBRACE:
+				if (depth > 0)
+					depth--;
+				typeKeyword = false;
+				break;
+			}
+			if (token != ITerminalSymbols.TokenNameRPAREN)
+				anonymousBody = false;
+			lastToken = token;
+
+			StringBuffer buffer = text;
+			if (depth == 0 && token != ITerminalSymbols.TokenNameRBRACE) {
+				// a declaration at the top level is only kept once it turns
+				// out not to be an annotation type
+				if (token == ITerminalSymbols.TokenNameSEMICOLON) {
+					text.append(pending);
+					pending.setLength(0);
+				}
+				buffer = pending;
+			} else {
+				text.append(pending);
+				pending.setLength(0);
+			}
+			if (javadocStart >= 0) {
+				boolean attached;
+				if (localJavadoc) {
+					if (isModifier(token)) {
+						append(modifiers, scanner.getCurrentTokenStartPosition(),
+								scanner.getCurrentTokenEndPosition());
+						continue;
+					}
+					attached = token == ITerminalSymbols.TokenNameclass
+							|| token == ITerminalSymbols.TokenNameinterface;
+				} else {
+					attached = token != ITerminalSymbols.TokenNameRBRACE
+							&& token != ITerminalSymbols.TokenNameSEMICOLON;
+				}
+				if (attached)
+					append(buffer, javadocStart, javadocEnd);
+				buffer.append(modifiers);
+				modifiers.setLength(0);
+				javadocStart = -1;
+			}
+			append(buffer, scanner.getCurrentTokenStartPosition(),
+					scanner.getCurrentTokenEndPosition());
+		}
+		text.append(modifiers);
+		text.append(pending);
+	}
+
+	private boolean isModifier(int token) {
+		return token == ITerminalSymbols.TokenNamefinal
+				|| token == ITerminalSymbols.TokenNameabstract
+				|| token == ITerminalSymbols.TokenNamestatic
+				|| token == ITerminalSymbols.TokenNamestrictfp;
+	}
+
+	private int[] grow(int[] array) {
+		int[] larger = new int[array.length * 2];
+		System.arraycopy(array, 0, larger, 0, array.length);
+		return larger;
+	}
+
+	private void append(StringBuffer buffer, int start, int end) {
+		buffer.append(source, start, end - start + 1);
+		buffer.append(' ');
+	}
+}
@@ -0,0 +1,202 @@
+package utils;
+
+/**
+ * Turns text into terms in one pass: split, lower-case, filter and stem,
+ * without a String for every word. The result for each surface form is
+ * remembered, so a word seen before costs one hash lookup on its characters.
+ * <p>
+ * {@link #SOURCE_CODE} splits camelCase words of two letters or more and
+ * drops Java keywords and English stopwords before stemming, like the code
+ * corpus always did. {@link #NATURAL_LANGUAGE} keeps runs of letters, digits
+ * and apostrophes and drops a word when its stem is an English stopword, like
+ * the bug corpus. Both match the String based code word for word.
+ * <p>
+ * An analyzer is not thread-safe; use one per thread.
+ */
+public class Analyzer implements Splitter.TokenSink {
+	public static final int SOURCE_CODE = 0;
+	public static final int NATURAL_LANGUAGE = 1;
+	// bump whenever the terms produced for a text change, so cached corpora
+	// (see sourcecode.ParseCache) are not reused; getFingerprint() catches
+	// the changes that show on its probe text even without a bump
+	public static final int VERSION = 1;
+	// camelCase, acronyms, digits, keywords, stopwords and stemmed endings
+	private static final String PROBE = "public static final int"
+			+ " parseHTTPResponse2(String fileName, Object[] args)"
+			+ " throws IOException {"
+			+ " // Doesn't handle the users' running connections quickly;"
+			+ " return this.getIDsOfNamesAndRelations(x, y_z); }";
+
+	// the surface cache is dropped when it grows past this many words
+	private static final int MAX_SURFACES = 1 << 18;
+
+	private final int mode;
+
+	private char[] word = new char[64];
+	private String[] terms = new String[1024];
+	private int termCount = 0;
+
+	// open addressing from lower-case surface form to term, null when the
+	// word is filtered
+	private char[][] keys = new char[1024][];
+	private String[] values = new String[1024];
+	private int surfaceCount = 0;
+
+	public Analyzer(int mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Analyzes the text; the terms are read with
+	 * {@link #appendTerms(StringBuffer)} until the next call.
+	 */
+	public void analyze(char[] text, int off, int len) {
+		termCount = 0;
+		if (mode == SOURCE_CODE) {
+			Splitter.splitSourceCode(text, off, len, this);
+		} else {
+			Splitter.splitNatureLanguage(text, off, len, this);
+		}
+	}
+
+	public void analyze(String text) {
+		char[] chars = text.toCharArray();
+		analyze(chars, 0, chars.length);
+	}
+
+	/**
+	 * @return {@link #VERSION} with a hash of the terms of a fixed probe
+	 *         text, so a change to the splitting, filtering or stemming
+	 *         changes it
+	 */
+	public static String getFingerprint(int mode) {
+		Analyzer analyzer = new Analyzer(mode);
+		analyzer.analyze(PROBE);
+		StringBuffer terms = new StringBuffer();
+		analyzer.appendTerms(terms);
+		return VERSION + "/" + Integer.toHexString(terms.toString().hashCode());
+	}
+
+	/**
+	 * Appends the terms of the last analyzed text, each followed by a space.
+	 */
+	public void appendTerms(StringBuffer buffer) {
+		for (int i = 0; i < termCount; i++) {
+			buffer.append(terms[i]);
+			buffer.append(' ');
+		}
+	}
+
+	public void token(char[] buf, int off, int len) {
+		if (word.length < len) {
+			word = new char[len * 2];
+		}
+		int hash = 0;
+		for (int i = 0; i < len; i++) {
+			char c = buf[off + i];
+			if (c >= 'A' && c <= 'Z') {
+				c += 'a' - 'A';
+			}
+			word[i] = c;
+			hash = 31 * hash + c;
+		}
+
+		int mask = keys.length - 1;
+		int slot = mix(hash) & mask;
+		while (keys[slot] != null) {
+			if (equals(keys[slot], len)) {
+				emit(values[slot]);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		String term = term(len);
+		if (surfaceCount >= MAX_SURFACES) {
+			keys = new char[keys.length][];
+			surfaceCount = 0;
+		}
+		char[] key = new char[len];
+		System.arraycopy(word, 0, key, 0, len);
+		put(key, term, hash);
+		emit(term);
+	}
+
+	private String term(int len) {
+		if (mode == SOURCE_CODE) {
+			if (Stopword.isKeywordOrEnglishStopword(word, 0, len)) {
+				return null;
+			}
+			return Stem.stem(word, 0, len);
+		}
+		String stem = Stem.stem(word, 0, len);
+		if (Stopword.isEnglishStopword(stem)) {
+			return null;
+		}
+		return stem;
+	}
+
+	private void emit(String term) {
+		if (term == null) {
+			return;
+		}
+		if (termCount == terms.length) {
+			String[] larger = new String[termCount * 2];
+			System.arraycopy(terms, 0, larger, 0, termCount);
+			terms = larger;
+		}
+		terms[termCount++] = term;
+	}
+
+	private boolean equals(char[] key, int len) {
+		if (key.length != len) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (key[i] != word[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void put(char[] key, String value, int hash) {
+		if ((surfaceCount + 1) * 2 > keys.length) {
+			char[][] oldKeys = keys;
+			String[] oldValues = values;
+			keys = new char[oldKeys.length * 2][];
+			values = new String[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					insert(oldKeys[i], oldValues[i], hash(oldKeys[i]));
+				}
+			}
+		}
+		insert(key, value, hash);
+		surfaceCount++;
+	}
+
+	private void insert(char[] key, String value, int hash) {
+		int mask = keys.length - 1;
+		int slot = mix(hash) & mask;
+		while (keys[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+	}
+
+	private static int hash(char[] key) {
+		int hash = 0;
+		for (char c : key) {
+			hash = 31 * hash + c;
+		}
+		return hash;
+	}
+
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		return hash ^ (hash >>> 13);
+	}
+}
@@ -0,0 +1,88 @@
+package utils;
+
+/**
+ * A sparse matrix in compressed sparse row form, for reading many times
+ * without decoding: the entries of row r are {@code rowPointers[r]} to
+ * {@code rowPointers[r + 1]} of {@link #getColumns()} and
+ * {@link #getValues()}, with increasing columns.
+ */
+public class CsrMatrix {
+	private final int rowCount;
+	private final int columnCount;
+	private final int[] rowPointers;
+	private final int[] columns;
+	private final float[] values;
+
+	public CsrMatrix(int rowCount, int columnCount, int[] rowPointers,
+			int[] columns, float[] values) {
+		this.rowCount = rowCount;
+		this.columnCount = columnCount;
+		this.rowPointers = rowPointers;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	/**
+	 * Reads all rows of the file into one matrix.
+	 */
+	public static CsrMatrix load(SparseMatrixFile file) {
+		int rowCount = file.getRowCount();
+		int entryCount = (int) file.getEntryCount();
+		int[] rowPointers = new int[rowCount + 1];
+		int[] columns = new int[entryCount];
+		float[] values = new float[entryCount];
+		for (int row = 0; row < rowCount; row++) {
+			rowPointers[row + 1] = rowPointers[row]
+					+ file.getRow(row, columns, values, rowPointers[row]);
+		}
+		return new CsrMatrix(rowCount, file.getColumnCount(), rowPointers,
+				columns, values);
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public int getEntryCount() {
+		return rowPointers[rowCount];
+	}
+
+	public int[] getRowPointers() {
+		return rowPointers;
+	}
+
+	public int[] getColumns() {
+		return columns;
+	}
+
+	public float[] getValues() {
+		return values;
+	}
+
+	/**
+	 * @return the bytes held by the three arrays
+	 */
+	public long getBytes() {
+		return 4L * (rowCount + 1) + 8L * getEntryCount();
+	}
+
+	/**
+	 * @return the bytes of the same matrix as a float[] per row
+	 */
+	public long getDenseBytes() {
+		return 4L * rowCount * columnCount;
+	}
+
+	/**
+	 * @return rows, entries and the size against the dense layout
+	 */
+	public String getMemoryReport() {
+		return rowCount + " x " + columnCount + ", " + getEntryCount()
+				+ " entries: " + getBytes() / 1024 + " KB as CSR, "
+				+ getDenseBytes() / 1024 + " KB dense";
+	}
+}
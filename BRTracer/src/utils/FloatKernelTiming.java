@@ -0,0 +1,83 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times the {@link FloatKernels} against the scalar ones on arrays of a
+ * score per file, and checks that they give the same floats. Every kernel
+ * is warmed up first and then timed over many rounds.
+ * <p>
+ * Usage: {@code FloatKernelTiming <length> [rounds]}, where the length is
+ * the file count of a corpus, for example the lines of its MethodName.txt.
+ * Run with {@code --add-modules jdk.incubator.vector} and the src-vector
+ * classes on the class path to time the Vector API.
+ */
+public class FloatKernelTiming {
+	private static float sink;
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("usage: FloatKernelTiming <length> [rounds]");
+			return;
+		}
+		int length = Integer.parseInt(args[0]);
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		FloatKernels scalar = FloatKernels.getScalar();
+		FloatKernels kernels = FloatKernels.getInstance();
+		System.out.println("length " + length + ", " + rounds + " rounds, "
+				+ kernels.getName() + " against " + scalar.getName());
+
+		Random random = new Random(1);
+		float[] a = new float[length];
+		float[] b = new float[length];
+		for (int i = 0; i < length; i++) {
+			// most files score 0 against a bug
+			a[i] = random.nextInt(4) == 0 ? random.nextFloat() : 0;
+			b[i] = random.nextInt(4) == 0 ? random.nextFloat() : 0;
+		}
+
+		float[] expected = new float[length];
+		float[] actual = new float[length];
+		scalar.combine(a, b, 0.2f, expected, length);
+		kernels.combine(a, b, 0.2f, actual, length);
+		System.out.println("combine same: " + Arrays.equals(expected, actual));
+		scalar.normalize(expected, length);
+		kernels.normalize(actual, length);
+		System.out.println("normalize same: "
+				+ Arrays.equals(expected, actual));
+
+		for (String kernel : new String[] { "normalize", "combine" }) {
+			time(kernel, scalar, a, b, rounds);
+			time(kernel, kernels, a, b, rounds);
+			double scalarTime = time(kernel, scalar, a, b, rounds);
+			double time = time(kernel, kernels, a, b, rounds);
+			System.out.println(String.format(
+					"%-9s %10.0f ns %10.0f ns  %5.2fx", kernel, scalarTime,
+					time, scalarTime / time));
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	// nanoseconds per call
+	private static double time(String kernel, FloatKernels kernels,
+			float[] a, float[] b, int rounds) {
+		int length = a.length;
+		float[] array = new float[length];
+		float[] result = new float[length];
+		long start = System.nanoTime();
+		for (int r = 0; r < rounds; r++) {
+			if (kernel.equals("normalize")) {
+				System.arraycopy(a, 0, array, 0, length);
+				kernels.normalize(array, length);
+				sink += array[r % length];
+			} else {
+				kernels.combine(a, b, 0.2f, result, length);
+				sink += result[r % length];
+			}
+		}
+		return (double) (System.nanoTime() - start) / rounds;
+	}
+}
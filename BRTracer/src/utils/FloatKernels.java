@@ -0,0 +1,81 @@
+package utils;
+
+/**
+ * The loops of the evaluation over float arrays of a score per file: min-max
+ * normalization and the weighted combination of two scores. These are plain
+ * loops; when the JVM has the incubating Vector API, the instance is a
+ * subclass built from the src-vector source root that runs them on SIMD
+ * lanes. It is found by name, so this tree builds and runs without it.
+ * <p>
+ * Both kernels work on every element alone and give the same floats either
+ * way, for arrays without NaN or negative zero.
+ */
+public class FloatKernels {
+	private static final FloatKernels INSTANCE = load();
+
+	protected FloatKernels() {
+	}
+
+	private static FloatKernels load() {
+		if (!Boolean.getBoolean("brtracer.scalarKernels")) {
+			try {
+				return (FloatKernels) Class.forName("utils.VectorFloatKernels")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException ex) {
+				// the src-vector root is not built
+			} catch (LinkageError ex) {
+				// no Vector API in this JVM
+			}
+		}
+		return new FloatKernels();
+	}
+
+	/**
+	 * @return the Vector API kernels when they can be loaded, otherwise the
+	 *         scalar ones; -Dbrtracer.scalarKernels=true forces the latter
+	 */
+	public static FloatKernels getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the scalar kernels
+	 */
+	public static FloatKernels getScalar() {
+		return INSTANCE.getClass() == FloatKernels.class ? INSTANCE
+				: new FloatKernels();
+	}
+
+	public String getName() {
+		return "scalar";
+	}
+
+	/**
+	 * Scales the values into [0, 1] by their minimum and maximum, the
+	 * maximum starting from Float.MIN_VALUE like the evaluation always did.
+	 */
+	public void normalize(float[] array, int length) {
+		float max = Float.MIN_VALUE;
+		float min = Float.MAX_VALUE;
+		for (int i = 0; i < length; i++) {
+			if (max < array[i])
+				max = array[i];
+			if (min > array[i])
+				min = array[i];
+		}
+		float span = max - min;
+		for (int i = 0; i < length; i++) {
+			array[i] = (array[i] - min) / span;
+		}
+	}
+
+	/**
+	 * Puts {@code a * (1 - alpha) + b * alpha} into the result.
+	 */
+	public void combine(float[] a, float[] b, float alpha, float[] result,
+			int length) {
+		for (int i = 0; i < length; i++) {
+			result[i] = a[i] * (1 - alpha) + b[i] * alpha;
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sparse matrix with named rows in one binary file that is read through a
+ * memory map, so opening it costs no parsing. The file is
+ * <ul>
+ * <li>a header: magic, version, row count, column count and the positions
+ * of the sections below;</li>
+ * <li>the rows: the number of entries as a varint, then for each entry the
+ * distance to the previous column as a varint and the value as a float;</li>
+ * <li>the offset of every row and of the end of the last one;</li>
+ * <li>for every column the number of rows that have it;</li>
+ * <li>the row names as UTF-8 with an int length each.</li>
+ * </ul>
+ * A file is written once with {@link #create(File, int)} and
+ * {@link #add(String, int[], float[], int)} and read with
+ * {@link #open(File)}; reading is thread-safe.
+ */
+public class SparseMatrixFile {
+	private static final int MAGIC = 0x53504d31;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 * 4 + 3 * 8;
+
+	private final File file;
+	private int columnCount;
+
+	// writing
+	private DataOutputStream out;
+	private long position;
+	private List<Long> rowOffsets;
+	private List<String> rowNames;
+	private int[] columnRows;
+	private byte[] varint = new byte[5];
+
+	// reading
+	private MappedByteBuffer buffer;
+	private int rowCount;
+	private long[] offsets;
+	private String[] names;
+	private int[] columnFrequencies;
+
+	private SparseMatrixFile(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Starts an empty matrix in the file, replacing any old one.
+	 */
+	public static SparseMatrixFile create(File file, int columnCount)
+			throws IOException {
+		SparseMatrixFile matrix = new SparseMatrixFile(file);
+		matrix.columnCount = columnCount;
+		matrix.out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		matrix.out.write(new byte[HEADER_SIZE]);
+		matrix.position = HEADER_SIZE;
+		matrix.rowOffsets = new ArrayList<Long>();
+		matrix.rowNames = new ArrayList<String>();
+		matrix.columnRows = new int[columnCount];
+		return matrix;
+	}
+
+	/**
+	 * Adds a row with the first {@code count} entries of the arrays, whose
+	 * columns have to be increasing.
+	 */
+	public void add(String name, int[] columns, float[] values, int count)
+			throws IOException {
+		rowOffsets.add(position);
+		rowNames.add(name);
+		writeVarint(count);
+		int previous = 0;
+		for (int i = 0; i < count; i++) {
+			writeVarint(columns[i] - previous);
+			previous = columns[i];
+			out.writeFloat(values[i]);
+			position += 4;
+			columnRows[columns[i]]++;
+		}
+	}
+
+	private void writeVarint(int value) throws IOException {
+		int length = 0;
+		while ((value & ~0x7F) != 0) {
+			varint[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		varint[length++] = (byte) value;
+		out.write(varint, 0, length);
+		position += length;
+	}
+
+	/**
+	 * Writes the tables after the rows and then the header.
+	 */
+	public void close() throws IOException {
+		if (out == null) {
+			return;
+		}
+		long offsetsStart = position;
+		for (long offset : rowOffsets) {
+			out.writeLong(offset);
+		}
+		out.writeLong(position);
+		for (int rows : columnRows) {
+			out.writeInt(rows);
+		}
+		long namesStart = offsetsStart + 8L * (rowOffsets.size() + 1) + 4L
+				* columnCount;
+		for (String name : rowNames) {
+			byte[] bytes = name.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		out.close();
+		out = null;
+
+		RandomAccessFile header = new RandomAccessFile(file, "rw");
+		try {
+			header.writeInt(MAGIC);
+			header.writeInt(VERSION);
+			header.writeInt(rowOffsets.size());
+			header.writeInt(columnCount);
+			header.writeLong(offsetsStart);
+			header.writeLong(offsetsStart + 8L * (rowOffsets.size() + 1));
+			header.writeLong(namesStart);
+		} finally {
+			header.close();
+		}
+	}
+
+	/**
+	 * Maps the file and reads its tables; the rows are decoded when asked
+	 * for.
+	 */
+	public static SparseMatrixFile open(File file) throws IOException {
+		SparseMatrixFile matrix = new SparseMatrixFile(file);
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			matrix.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			in.close();
+		}
+		MappedByteBuffer buffer = matrix.buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("not a sparse matrix file: " + file);
+		}
+		matrix.rowCount = buffer.getInt(8);
+		matrix.columnCount = buffer.getInt(12);
+		int offsetsStart = (int) buffer.getLong(16);
+		int columnsStart = (int) buffer.getLong(24);
+		int namesStart = (int) buffer.getLong(32);
+
+		matrix.offsets = new long[matrix.rowCount + 1];
+		for (int i = 0; i <= matrix.rowCount; i++) {
+			matrix.offsets[i] = buffer.getLong(offsetsStart + 8 * i);
+		}
+		matrix.columnFrequencies = new int[matrix.columnCount];
+		for (int i = 0; i < matrix.columnCount; i++) {
+			matrix.columnFrequencies[i] = buffer.getInt(columnsStart + 4 * i);
+		}
+		matrix.names = new String[matrix.rowCount];
+		int p = namesStart;
+		for (int i = 0; i < matrix.rowCount; i++) {
+			byte[] bytes = new byte[buffer.getInt(p)];
+			for (int b = 0; b < bytes.length; b++) {
+				bytes[b] = buffer.get(p + 4 + b);
+			}
+			matrix.names[i] = new String(bytes, "UTF-8");
+			p += 4 + bytes.length;
+		}
+		return matrix;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public String getName(int row) {
+		return names[row];
+	}
+
+	/**
+	 * @return the number of rows with an entry in the column
+	 */
+	public int getColumnFrequency(int column) {
+		return columnFrequencies[column];
+	}
+
+	/**
+	 * @return the number of entries in the row
+	 */
+	public int getRowSize(int row) {
+		return readVarint((int) offsets[row], new int[1]);
+	}
+
+	/**
+	 * @return the number of entries in all rows
+	 */
+	public long getEntryCount() {
+		long count = 0;
+		for (int rows : columnFrequencies) {
+			count += rows;
+		}
+		return count;
+	}
+
+	public SparseVector getRow(int row) {
+		int count = getRowSize(row);
+		int[] columns = new int[count];
+		float[] values = new float[count];
+		getRow(row, columns, values, 0);
+		return new SparseVector(columns, values);
+	}
+
+	/**
+	 * Decodes the row into the arrays from {@code at} on.
+	 *
+	 * @return the number of entries in the row
+	 */
+	public int getRow(int row, int[] columns, float[] values, int at) {
+		int p = (int) offsets[row];
+		int[] varintEnd = new int[1];
+		int count = readVarint(p, varintEnd);
+		p = varintEnd[0];
+		int column = 0;
+		for (int i = at; i < at + count; i++) {
+			column += readVarint(p, varintEnd);
+			p = varintEnd[0];
+			columns[i] = column;
+			values[i] = buffer.getFloat(p);
+			p += 4;
+		}
+		return count;
+	}
+
+	// reads the varint at p and puts the position after it in end[0]
+	private int readVarint(int p, int[] end) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get(p++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		end[0] = p;
+		return value;
+	}
+}
@@ -0,0 +1,55 @@
+package utils;
+
+/**
+ * A vector that stores only its non-zero entries, as parallel arrays of
+ * indices in increasing order and their values.
+ */
+public class SparseVector {
+	private final int[] indices;
+	private final float[] values;
+
+	/**
+	 * @param indices
+	 *            strictly increasing; the arrays are kept, not copied
+	 */
+	public SparseVector(int[] indices, float[] values) {
+		this.indices = indices;
+		this.values = values;
+	}
+
+	public int size() {
+		return indices.length;
+	}
+
+	public int[] getIndices() {
+		return indices;
+	}
+
+	public float[] getValues() {
+		return values;
+	}
+
+	public float dot(SparseVector other) {
+		float product = 0;
+		int i = 0;
+		int j = 0;
+		while (i < indices.length && j < other.indices.length) {
+			if (indices[i] < other.indices[j]) {
+				i++;
+			} else if (indices[i] > other.indices[j]) {
+				j++;
+			} else {
+				product += values[i++] * other.values[j++];
+			}
+		}
+		return product;
+	}
+
+	public float squaredNorm() {
+		float sum = 0;
+		for (float value : values) {
+			sum += value * value;
+		}
+		return sum;
+	}
+}
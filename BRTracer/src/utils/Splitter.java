@@ -2,77 +2,136 @@ package utils;
 
 import java.util.ArrayList;
 
+// a change to the words split out must bump Analyzer.VERSION, which keys the
+// cached corpora of sourcecode.ParseCache
 public class Splitter {
+    /**
+     * Receives the words found by the streaming split methods. The slice is
+     * only valid during the call.
+     */
+    public interface TokenSink {
+        public void token(char[] buf, int off, int len);
+    }
+
     public static String[] splitNatureLanguage(String natureLanguage) {
-        ArrayList<String> wordList = new ArrayList<String>();
-        StringBuffer wordBuffer = new StringBuffer();
-        for (char c : natureLanguage.toCharArray()) {
+        final ArrayList<String> wordList = new ArrayList<String>();
+        splitNatureLanguage(natureLanguage.toCharArray(), 0,
+                natureLanguage.length(), new TokenSink() {
+                    public void token(char[] buf, int off, int len) {
+                        wordList.add(new String(buf, off, len));
+                    }
+                });
+        return wordList.toArray(new String[wordList.size()]);
+    }
+
+    /**
+     * Emits every run of letters, digits and apostrophes.
+     */
+    public static void splitNatureLanguage(char[] buf, int off, int len,
+            TokenSink sink) {
+        int end = off + len;
+        int start = -1;
+        for (int i = off; i < end; i++) {
+            char c = buf[i];
             if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
                     || (c >= '0' && c <= '9') || c == '\'') {
-                wordBuffer.append(c);
-            } else {
-                String word = wordBuffer.toString();
-                if (!word.equals("")) {
-                    wordList.add(word);
+                if (start < 0) {
+                    start = i;
                 }
-                wordBuffer = new StringBuffer();
+            } else if (start >= 0) {
+                sink.token(buf, start, i - start);
+                start = -1;
             }
         }
+        if (start >= 0) {
+            sink.token(buf, start, end - start);
+        }
+    }
 
-        if (wordBuffer.length() != 0) {
-            String word = wordBuffer.toString();
-            if (!word.equals("")) {
-                wordList.add(word);
-            }
-            wordBuffer = new StringBuffer();
+    public static String[] splitSourceCode(String sourceCode) {
+        final ArrayList<String> wordList = new ArrayList<String>();
+        splitSourceCode(sourceCode.toCharArray(), 0, sourceCode.length(),
+                new TokenSink() {
+                    public void token(char[] buf, int off, int len) {
+                        wordList.add(new String(buf, off, len));
+                    }
+                });
+        if (wordList.isEmpty()) {
+            return new String[] { "" };
         }
         return wordList.toArray(new String[wordList.size()]);
     }
 
-    public static String[] splitSourceCode(String sourceCode) {
-        StringBuffer contentBuf = new StringBuffer();
-        StringBuffer wordBuf = new StringBuffer();
-        sourceCode += "$";
-        for (char c : sourceCode.toCharArray()) {
-            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
-                wordBuf.append(c);
-                continue;
+    /**
+     * Splits the source code into the lower-case words that
+     * {@link #splitSourceCode(String)} finds, as one array.
+     */
+    public static String[] splitSourceCodeLowerCase(char[] buf, int off,
+            int len) {
+        final ArrayList<String> wordList = new ArrayList<String>();
+        splitSourceCode(buf, off, len, new TokenSink() {
+            public void token(char[] buf, int off, int len) {
+                char[] word = new char[len];
+                for (int i = 0; i < len; i++) {
+                    char c = buf[off + i];
+                    word[i] = c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+                }
+                wordList.add(new String(word));
             }
-            int length = wordBuf.length();
-            if (length != 0) {
-                int k = 0;
-                for (int i = 0, j = 1; i < length - 1; i++, j++) {
-                    char first = wordBuf.charAt(i);
-                    char second = wordBuf.charAt(j);
-                    if ((first >= 'A' && first <= 'Z')
-                            && (second >= 'a' && second <= 'z')) {
-                        contentBuf.append(wordBuf.substring(k, i));
-                        contentBuf.append(' ');
-                        k = i;
-                        continue;
-                    }
-                    if ((first >= 'a' && first <= 'z')
-                            && (second >= 'A' && second <= 'Z')) {
-                        contentBuf.append(wordBuf.substring(k, j));
-                        contentBuf.append(' ');
-                        k = j;
-                        continue;
+        });
+        return wordList.toArray(new String[wordList.size()]);
+    }
+
+    /**
+     * Emits the camelCase parts of every run of ASCII letters. A part starts
+     * at an upper-case letter followed by a lower-case one ("HTMLParser"
+     * gives "HTML" and "Parser") and after a lower-case letter followed by an
+     * upper-case one ("getName" gives "get" and "Name"). Parts shorter than
+     * two letters are dropped.
+     */
+    public static void splitSourceCode(char[] buf, int off, int len,
+            TokenSink sink) {
+        int end = off + len;
+        int start = -1;
+        for (int i = off; i <= end; i++) {
+            if (i < end) {
+                char c = buf[i];
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    if (start < 0) {
+                        start = i;
                     }
+                    continue;
                 }
-                if (k < length) {
-                    contentBuf.append(wordBuf.substring(k));
-                    contentBuf.append(" ");
-                }
-                wordBuf = new StringBuffer();
+            }
+            if (start >= 0) {
+                splitWord(buf, start, i, sink);
+                start = -1;
             }
         }
-        String[] words = contentBuf.toString().split(" ");
-        contentBuf = new StringBuffer();
-        for (int i = 0; i < words.length; i++) {
-            if (!words[i].trim().equals("") && words[i].length() >= 2) {
-                contentBuf.append(words[i] + " ");
+    }
+
+    private static void splitWord(char[] buf, int start, int end,
+            TokenSink sink) {
+        int k = start;
+        for (int i = start, j = start + 1; i < end - 1; i++, j++) {
+            char first = buf[i];
+            char second = buf[j];
+            if ((first >= 'A' && first <= 'Z')
+                    && (second >= 'a' && second <= 'z')) {
+                emit(buf, k, i, sink);
+                k = i;
+            } else if ((first >= 'a' && first <= 'z')
+                    && (second >= 'A' && second <= 'Z')) {
+                emit(buf, k, j, sink);
+                k = j;
             }
         }
-        return contentBuf.toString().trim().split(" ");
+        emit(buf, k, end, sink);
+    }
+
+    private static void emit(char[] buf, int start, int end, TokenSink sink) {
+        if (end - start >= 2) {
+            sink.token(buf, start, end - start);
+        }
     }
 }
@@ -1,12 +1,167 @@
 package utils;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Porter stemming with a cache of the words seen so far. Source code repeats
+ * the same few thousand identifiers over and over, so most calls are served
+ * from the cache.
+ * <p>
+ * The cache holds two generations. New words go to the young one; when it
+ * is full it becomes the old one and the previous old generation is
+ * dropped. A hit in the old generation moves the word back to the young
+ * one, so words in use survive and the cache never holds more than
+ * {@link #setCacheSize(int)} words.
+ * <p>
+ * A change to the stems must bump {@link Analyzer#VERSION}.
+ */
 public class Stem {
-	private static PorterStemmer stemmer = new PorterStemmer();
+	// PorterStemmer keeps the word in an instance buffer, so every thread
+	// needs its own
+	private static final ThreadLocal<PorterStemmer> STEMMERS = new ThreadLocal<PorterStemmer>() {
+		@Override
+		protected PorterStemmer initialValue() {
+			return new PorterStemmer();
+		}
+	};
+
+	private static volatile int cacheSize = 100000;
+	private static volatile Map<String, String> young = new ConcurrentHashMap<String, String>();
+	private static volatile Map<String, String> old = new ConcurrentHashMap<String, String>();
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
 
 	public static String stem(String word) {
-		stemmer.reset();
-		stemmer.stem(word);
-		return stemmer.toString();
+		String stem = lookup(word);
+		if (stem == null) {
+			PorterStemmer stemmer = STEMMERS.get();
+			stemmer.reset();
+			stemmer.stem(word);
+			stem = stemmer.toString();
+			remember(word, stem);
+		}
+		return stem;
+	}
+
+	public static String stem(char[] buf, int off, int len) {
+		String word = new String(buf, off, len);
+		String stem = lookup(word);
+		if (stem == null) {
+			PorterStemmer stemmer = STEMMERS.get();
+			stemmer.stem(buf, off, len);
+			stem = stemmer.toString();
+			remember(word, stem);
+		}
+		return stem;
+	}
+
+	private static String lookup(String word) {
+		String stem = young.get(word);
+		if (stem == null) {
+			stem = old.get(word);
+			if (stem != null) {
+				remember(word, stem);
+			}
+		}
+		if (stem == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return stem;
+	}
+
+	private static void remember(String word, String stem) {
+		if (cacheSize <= 0) {
+			return;
+		}
+		Map<String, String> generation = young;
+		generation.put(word, stem);
+		if (generation.size() >= cacheSize / 2) {
+			rotate(generation);
+		}
+	}
+
+	private static synchronized void rotate(Map<String, String> full) {
+		// another thread may have rotated while this one was adding
+		if (young == full) {
+			old = full;
+			young = new ConcurrentHashMap<String, String>();
+		}
+	}
+
+	/**
+	 * @param size
+	 *            the most words kept; 0 turns the cache off
+	 */
+	public static synchronized void setCacheSize(int size) {
+		cacheSize = size;
+		clear();
+	}
+
+	public static synchronized void clear() {
+		young = new ConcurrentHashMap<String, String>();
+		old = new ConcurrentHashMap<String, String>();
+		hits.set(0);
+		misses.set(0);
+	}
+
+	public static long getHits() {
+		return hits.get();
+	}
+
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Reads a dictionary written by {@link #save(File)}; a missing file is
+	 * ignored.
+	 */
+	public static void load(File file) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int tab = line.indexOf('\t');
+				if (tab > 0) {
+					remember(line.substring(0, tab), line.substring(tab + 1));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Writes the cached words as "word\tstem" lines, the older generation
+	 * first so a later load keeps the recent words.
+	 */
+	public static void save(File file) throws IOException {
+		FileWriter writer = new FileWriter(file);
+		try {
+			write(writer, old);
+			write(writer, young);
+		} finally {
+			writer.close();
+		}
+	}
 
+	private static void write(FileWriter writer, Map<String, String> words)
+			throws IOException {
+		for (Map.Entry<String, String> entry : words.entrySet()) {
+			writer.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+		}
 	}
 }
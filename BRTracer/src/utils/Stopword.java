@@ -1,10 +1,23 @@
 package utils;
 
-import java.util.TreeSet;
-
+/**
+ * Java keywords and English stopwords, both stemmed. The words live in one
+ * array-based trie over 'a'-'z' and the apostrophe, so a lookup walks the
+ * characters once and can test a char[] slice without building a String.
+ * A change to the words must bump {@link Analyzer#VERSION}.
+ */
 public class Stopword {
-	private static final TreeSet<String> JAVA_KEYWORDS_STOP_WORD_SET;
-	private static final TreeSet<String> ENG_STOP_WORDS_SET;
+	private static final byte KEYWORD = 1;
+	private static final byte ENGLISH_STOPWORD = 2;
+
+	// 'a'-'z' and '\''
+	private static final int ALPHABET = 27;
+
+	// children[node * ALPHABET + letter] is the child node, 0 for none; node 0
+	// is the root
+	private static int[] children = new int[ALPHABET * 1024];
+	private static byte[] flags = new byte[1024];
+	private static int nodeCount = 1;
 
 	static {
 		String[] keywords = new String[] { "abstract", "continue", "for",
@@ -18,11 +31,10 @@ public class Stopword {
 				"float", "native", "super", "while", "org", "eclipse", "swt",
 				"string", "main", "args", "null", "this", "extends", "true",
 				"false" };
-		JAVA_KEYWORDS_STOP_WORD_SET = new TreeSet<String>();
 		for (int i = 0; i < keywords.length; i++) {
 			String word = keywords[i].trim().toLowerCase();
 			word = Stem.stem(word);
-			JAVA_KEYWORDS_STOP_WORD_SET.add(word);
+			add(word, KEYWORD);
 		}
 		String[] EngStopWord = { "a", "a's", "able", "about", "above",
 				"according", "accordingly", "across", "actually", "after",
@@ -114,22 +126,105 @@ public class Stopword {
 				"would", "would", "wouldn't", "x", "y", "yes", "yet", "you",
 				"you'd", "you'll", "you're", "you've", "your", "yours",
 				"yourself", "yourselves", "z", "zero","quot" };
-		ENG_STOP_WORDS_SET = new TreeSet<String>();
 		for (int i = 0; i < EngStopWord.length; i++) {
 			String word = EngStopWord[i].toLowerCase().trim();
 			word = Stem.stem(word);
-			ENG_STOP_WORDS_SET.add(word);
+			add(word, ENGLISH_STOPWORD);
+		}
+
+	}
+
+	private static int letter(char c) {
+		if (c >= 'a' && c <= 'z') {
+			return c - 'a';
 		}
+		return c == '\'' ? 26 : -1;
+	}
 
+	private static void add(String word, byte flag) {
+		int node = 0;
+		for (int i = 0; i < word.length(); i++) {
+			int slot = node * ALPHABET + letter(word.charAt(i));
+			if (children[slot] == 0) {
+				if (nodeCount == flags.length) {
+					int[] largerChildren = new int[children.length * 2];
+					System.arraycopy(children, 0, largerChildren, 0,
+							children.length);
+					children = largerChildren;
+					byte[] largerFlags = new byte[flags.length * 2];
+					System.arraycopy(flags, 0, largerFlags, 0, flags.length);
+					flags = largerFlags;
+				}
+				children[slot] = nodeCount++;
+			}
+			node = children[slot];
+		}
+		flags[node] |= flag;
+	}
+
+	private static byte lookup(CharSequence word) {
+		int node = 0;
+		for (int i = 0; i < word.length(); i++) {
+			int letter = letter(word.charAt(i));
+			if (letter < 0) {
+				return 0;
+			}
+			node = children[node * ALPHABET + letter];
+			if (node == 0) {
+				return 0;
+			}
+		}
+		return flags[node];
+	}
+
+	private static byte lookup(char[] buf, int off, int len) {
+		int node = 0;
+		for (int i = off; i < off + len; i++) {
+			int letter = letter(buf[i]);
+			if (letter < 0) {
+				return 0;
+			}
+			node = children[node * ALPHABET + letter];
+			if (node == 0) {
+				return 0;
+			}
+		}
+		return flags[node];
 	}
 
 	public static boolean isKeyword(String word) {
-		boolean isKeyword = JAVA_KEYWORDS_STOP_WORD_SET.contains(word);
-		return isKeyword;
+		return isKeyword((CharSequence) word);
+	}
+
+	public static boolean isKeyword(CharSequence word) {
+		return (lookup(word) & KEYWORD) != 0;
+	}
+
+	public static boolean isKeyword(char[] buf, int off, int len) {
+		return (lookup(buf, off, len) & KEYWORD) != 0;
 	}
 
 	public static boolean isEnglishStopword(String word) {
-		boolean isEnglishStopword = ENG_STOP_WORDS_SET.contains(word);
-		return isEnglishStopword;
+		return isEnglishStopword((CharSequence) word);
+	}
+
+	public static boolean isEnglishStopword(CharSequence word) {
+		return (lookup(word) & ENGLISH_STOPWORD) != 0;
+	}
+
+	public static boolean isEnglishStopword(char[] buf, int off, int len) {
+		return (lookup(buf, off, len) & ENGLISH_STOPWORD) != 0;
+	}
+
+	/**
+	 * Same as isKeyword(word) || isEnglishStopword(word) with one walk.
+	 */
+	public static boolean isKeywordOrEnglishStopword(CharSequence word) {
+		return lookup(word) != 0;
+	}
+
+	public static boolean isKeywordOrEnglishStopword(char[] buf, int off,
+			int len) {
+		return lookup(buf, off, len) != 0;
 	}
 }
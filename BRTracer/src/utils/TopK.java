@@ -0,0 +1,127 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the entries with the highest scores out of those offered, in a
+ * min-heap bounded by the capacity. Of two entries with the same score the
+ * one with the smaller id is kept, so the result does not depend on the
+ * order of the offers.
+ */
+public class TopK {
+	private final int capacity;
+	private int[] ids = new int[16];
+	private float[] scores = new float[16];
+	private int size = 0;
+
+	public TopK(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the lowest score kept, which a new entry has to beat once the
+	 *         heap is full
+	 */
+	public float minScore() {
+		return scores[0];
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	public void offer(int id, float score) {
+		if (size < capacity) {
+			if (size == ids.length) {
+				int length = (int) Math.min((long) size * 2, capacity);
+				int[] largerIds = new int[length];
+				float[] largerScores = new float[length];
+				System.arraycopy(ids, 0, largerIds, 0, size);
+				System.arraycopy(scores, 0, largerScores, 0, size);
+				ids = largerIds;
+				scores = largerScores;
+			}
+			ids[size] = id;
+			scores[size] = score;
+			siftUp(size++);
+		} else if (capacity > 0 && isBelow(ids[0], scores[0], id, score)) {
+			ids[0] = id;
+			scores[0] = score;
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Copies the kept entries into the arrays, by increasing id.
+	 * 
+	 * @return the number of entries
+	 */
+	public int toArrays(int[] idOut, float[] scoreOut) {
+		int[] order = new int[size];
+		System.arraycopy(ids, 0, order, 0, size);
+		Arrays.sort(order);
+		for (int i = 0; i < size; i++) {
+			idOut[i] = order[i];
+		}
+		for (int i = 0; i < size; i++) {
+			scoreOut[Arrays.binarySearch(order, ids[i])] = scores[i];
+		}
+		return size;
+	}
+
+	// whether entry a ranks below entry b
+	private static boolean isBelow(int idA, float scoreA, int idB, float scoreB) {
+		return scoreA < scoreB || (scoreA == scoreB && idA > idB);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isBelow(ids[i], scores[i], ids[parent], scores[parent])) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int lowest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < size
+					&& isBelow(ids[left], scores[left], ids[lowest],
+							scores[lowest])) {
+				lowest = left;
+			}
+			if (right < size
+					&& isBelow(ids[right], scores[right], ids[lowest],
+							scores[lowest])) {
+				lowest = right;
+			}
+			if (lowest == i) {
+				return;
+			}
+			swap(i, lowest);
+			i = lowest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int id = ids[i];
+		ids[i] = ids[j];
+		ids[j] = id;
+		float score = scores[i];
+		scores[i] = scores[j];
+		scores[j] = score;
+	}
+}